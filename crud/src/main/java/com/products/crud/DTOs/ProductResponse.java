@@ -19,4 +19,5 @@ public class ProductResponse implements Serializable {
     private Integer lowStockThreshold;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Integer version;   // with stockQuantity it makes up the ETag, send that back in If-Match for conditional updates
 }
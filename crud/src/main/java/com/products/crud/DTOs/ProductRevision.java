@@ -0,0 +1,10 @@
+package com.products.crud.DTOs;
+
+// the product state an ETag stands for; with the stock engine, stock changes without a version bump
+public record ProductRevision(int version, int stockQuantity) {
+
+    public boolean matches(Integer currentVersion, Integer currentStock) {
+        return currentVersion != null && currentVersion == version
+                && currentStock != null && currentStock == stockQuantity;
+    }
+}
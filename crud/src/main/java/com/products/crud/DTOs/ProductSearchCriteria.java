@@ -0,0 +1,58 @@
+package com.products.crud.DTOs;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.Locale;
+
+@Data
+public class ProductSearchCriteria {
+
+    public enum MatchMode {
+        PREFIX,
+        CONTAINS
+    }
+
+    // shorter substrings contain no trigram, so pg_trgm could not use its index for them
+    public static final int MIN_CONTAINS_LENGTH = 3;
+
+    @Size(max = 100, message = "Name filter must be at most 100 characters")
+    private String name;
+
+    private MatchMode match = MatchMode.PREFIX;
+
+    @Min(value = 0, message = "Minimum stock must be non-negative")
+    private Integer minStock;
+
+    @Min(value = 0, message = "Maximum stock must be non-negative")
+    private Integer maxStock;
+
+    private boolean belowThreshold;
+
+    private String cursor;
+
+    @Min(value = 1, message = "Page size must be at least 1")
+    @Max(value = 100, message = "Page size must be at most 100")
+    private Integer size = 20;
+
+    // name filter is matched case-insensitively, so "Bolt ", "bolt" and "BOLT" share one cache entry
+    public String normalizedName() {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public String cacheKey() {
+        String normalizedName = normalizedName();
+        return (normalizedName != null ? match : "ANY") + "|" +
+                (normalizedName != null ? normalizedName : "") + "|" +
+                (minStock != null ? minStock : "") + "|" +
+                (maxStock != null ? maxStock : "") + "|" +
+                belowThreshold + "|" +
+                (cursor != null ? cursor : "") + "|" +
+                size;
+    }
+}
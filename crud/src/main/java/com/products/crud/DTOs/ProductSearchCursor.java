@@ -0,0 +1,27 @@
+package com.products.crud.DTOs;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+// last row of a search page; search names are not unique ("Bolt" and "bolt"), so the id breaks ties
+public record ProductSearchCursor(String searchName, UUID id) {
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((id + ":" + searchName).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductSearchCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid search cursor.");
+            }
+            return new ProductSearchCursor(value.substring(separator + 1), UUID.fromString(value.substring(0, separator)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid search cursor.");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.products.crud.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<ProductResponse> items;
+    private String nextCursor;   // null when there are no further results
+}
@@ -0,0 +1,159 @@
+package com.products.crud.admission;
+
+import com.products.crud.exception.RateLimitExceededException;
+import com.products.crud.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of the product API: a token bucket per client, a token bucket
+ * per product for write requests, and an adaptive concurrency limit per endpoint.
+ * Rejections are thrown as exceptions so they share the GlobalExceptionHandler error format.
+ */
+@Slf4j
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    private static final String LIMITER_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".limiter";
+    private static final String START_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".start";
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final AdmissionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final TokenBucketLimiter clientLimiter;
+    private final TokenBucketLimiter productLimiter;
+    private final TrustedProxies trustedProxies;
+    private final Map<String, AdaptiveConcurrencyLimiter> endpointLimiters = new ConcurrentHashMap<>();
+
+    public AdmissionControlInterceptor(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.clientLimiter = new TokenBucketLimiter(properties.clientRequestsPerSecond(),
+                properties.clientBurst(), properties.maxTrackedKeys());
+        this.productLimiter = new TokenBucketLimiter(properties.productRequestsPerSecond(),
+                properties.productBurst(), properties.maxTrackedKeys());
+        this.trustedProxies = new TrustedProxies(properties.trustedProxies());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        String endpoint = endpointOf(request);
+        long now = System.nanoTime();
+
+        long clientWait = clientLimiter.tryAcquire(clientOf(request), now);
+        if (clientWait > 0) {
+            reject(endpoint, "client_rate");
+            throw new RateLimitExceededException("Too many requests from this client.", toRetryAfterSeconds(clientWait));
+        }
+
+        // one hot SKU must not tie up threads and connections with optimistic-lock retries
+        String productId = productIdOf(request);
+        if (productId != null && !HttpMethod.GET.matches(request.getMethod())) {
+            long productWait = productLimiter.tryAcquire(productId, now);
+            if (productWait > 0) {
+                reject(endpoint, "product_rate");
+                throw new RateLimitExceededException("Too many updates for product " + productId + ".",
+                        toRetryAfterSeconds(productWait));
+            }
+        }
+
+        AdaptiveConcurrencyLimiter limiter = endpointLimiters.computeIfAbsent(endpoint, this::newLimiter);
+        if (!limiter.tryAcquire()) {
+            reject(endpoint, "concurrency");
+            throw new ServiceOverloadedException("Service is overloaded, please retry later.", 1);
+        }
+        request.setAttribute(LIMITER_ATTRIBUTE, limiter);
+        request.setAttribute(START_ATTRIBUTE, now);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object limiter = request.getAttribute(LIMITER_ATTRIBUTE);
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (limiter instanceof AdaptiveConcurrencyLimiter concurrencyLimiter && start instanceof Long startNanos) {
+            request.removeAttribute(LIMITER_ATTRIBUTE);
+            concurrencyLimiter.release(System.nanoTime() - startNanos);
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter newLimiter(String endpoint) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties.initialConcurrencyLimit(),
+                properties.minConcurrencyLimit(), properties.maxConcurrencyLimit());
+        Gauge.builder("inventory.admission.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Current adaptive concurrency limit")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("inventory.admission.concurrency.in_flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Requests currently admitted")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    private void reject(String endpoint, String reason) {
+        log.debug("Shedding request to {} ({})", endpoint, reason);
+        Counter.builder("inventory.admission.rejected")
+                .description("Requests rejected by admission control")
+                .tag("endpoint", endpoint)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private String endpointOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    // anyone can send the client header, so it (and X-Forwarded-For) only counts when a trusted proxy relayed the request
+    private String clientOf(HttpServletRequest request) {
+        String peer = request.getRemoteAddr();
+        if (!trustedProxies.contains(peer)) {
+            return peer;
+        }
+        String client = request.getHeader(properties.clientHeader());
+        if (client != null && !client.isBlank()) {
+            return client.trim();
+        }
+        String forwardedFor = request.getHeader(FORWARDED_FOR_HEADER);
+        if (forwardedFor != null) {
+            // the right-most hop our own proxies did not add is the first one they could vouch for
+            String[] hops = forwardedFor.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (!hop.isEmpty() && !trustedProxies.contains(hop)) {
+                    return hop;
+                }
+            }
+        }
+        return peer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String productIdOf(HttpServletRequest request) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables instanceof Map<?, ?> map) {
+            return ((Map<String, String>) map).get("id");
+        }
+        return null;
+    }
+
+    static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+    }
+}
@@ -0,0 +1,21 @@
+package com.products.crud.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+@ConfigurationProperties(prefix = "inventory.admission")
+public record AdmissionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("X-Client-Id") String clientHeader,
+        @DefaultValue List<String> trustedProxies,
+        @DefaultValue("100") double clientRequestsPerSecond,
+        @DefaultValue("200") int clientBurst,
+        @DefaultValue("20") double productRequestsPerSecond,
+        @DefaultValue("40") int productBurst,
+        @DefaultValue("20") int initialConcurrencyLimit,
+        @DefaultValue("4") int minConcurrencyLimit,
+        @DefaultValue("200") int maxConcurrencyLimit,
+        @DefaultValue("100000") int maxTrackedKeys) {
+}
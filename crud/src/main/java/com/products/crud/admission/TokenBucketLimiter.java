@@ -0,0 +1,81 @@
+package com.products.crud.admission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One token bucket per key (client or product id). Keys are spread over independently locked
+ * segments, each an access-ordered map that drops its least recently used bucket once it holds
+ * its share of maxKeys, so memory stays bounded however many distinct keys show up.
+ */
+final class TokenBucketLimiter {
+
+    private static final int SEGMENTS = 64;
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    TokenBucketLimiter(double requestsPerSecond, int burst, int maxKeys) {
+        this.tokensPerNano = requestsPerSecond / 1_000_000_000d;
+        this.capacity = Math.max(1, burst);
+        int keysPerSegment = Math.max(1, maxKeys / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(keysPerSegment);
+        }
+    }
+
+    /**
+     * @return 0 if a token was taken, otherwise the nanoseconds until one becomes available
+     */
+    long tryAcquire(String key, long now) {
+        int hash = key.hashCode();
+        Segment segment = segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+        synchronized (segment) {
+            Bucket bucket = segment.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(now);
+                segment.put(key, bucket);
+            }
+            return bucket.tryAcquire(now);
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<String, Bucket> {
+
+        private final int maxKeys;
+
+        Segment(int maxKeys) {
+            super(16, 0.75f, true);
+            this.maxKeys = maxKeys;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxKeys;
+        }
+    }
+
+    // only touched under its segment's lock
+    private final class Bucket {
+        private double tokens;
+        private long lastRefill;
+
+        Bucket(long now) {
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        long tryAcquire(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+                lastRefill = now;
+            }
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.products.crud.admission;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Addresses and CIDR ranges (e.g. 10.0.0.0/8) of the proxies allowed to name the client of a request.
+ */
+final class TrustedProxies {
+
+    private final List<Network> networks = new ArrayList<>();
+
+    TrustedProxies(List<String> entries) {
+        for (String entry : entries) {
+            String value = entry.trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            int slash = value.indexOf('/');
+            byte[] address = parse(slash < 0 ? value : value.substring(0, slash));
+            if (address == null) {
+                throw new IllegalArgumentException("Trusted proxy must be an IP address or CIDR range: " + entry);
+            }
+            int prefix = slash < 0 ? address.length * 8 : Integer.parseInt(value.substring(slash + 1));
+            if (prefix < 0 || prefix > address.length * 8) {
+                throw new IllegalArgumentException("Invalid prefix length in trusted proxy " + entry);
+            }
+            networks.add(new Network(address, prefix));
+        }
+    }
+
+    boolean contains(String address) {
+        if (networks.isEmpty() || address == null) {
+            return false;
+        }
+        byte[] bytes = parse(address.trim());
+        if (bytes == null) {
+            return false;
+        }
+        for (Network network : networks) {
+            if (network.contains(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses an IPv4 or IPv6 literal by hand. InetAddress.getByName falls back to the system resolver
+     * for anything it does not recognise (999.1.1.1, g::1), and hops come straight from a client
+     * header, so only the finished bytes are handed to InetAddress. Zone ids and brackets are rejected.
+     */
+    private static byte[] parse(String address) {
+        byte[] bytes = address.indexOf(':') < 0 ? parseIpv4(address) : parseIpv6(address);
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            // maps ::ffff:a.b.c.d to its IPv4 form so both spellings match the same ranges
+            return InetAddress.getByAddress(bytes).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static byte[] parseIpv4(String address) {
+        byte[] bytes = new byte[4];
+        return parseIpv4(address, bytes, 0) ? bytes : null;
+    }
+
+    private static boolean parseIpv4(String address, byte[] into, int offset) {
+        int octet = 0;
+        int value = 0;
+        int digits = 0;
+        for (int i = 0; i <= address.length(); i++) {
+            char c = i < address.length() ? address.charAt(i) : '.';
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (++digits > 3 || value > 255) {
+                    return false;
+                }
+            } else if (c == '.' && digits > 0 && octet < 4) {
+                into[offset + octet++] = (byte) value;
+                value = 0;
+                digits = 0;
+            } else {
+                return false;
+            }
+        }
+        return octet == 4;
+    }
+
+    private static byte[] parseIpv6(String address) {
+        if (address.length() > 45) {
+            return null;
+        }
+        byte[] bytes = new byte[16];
+        int gap = address.indexOf("::");
+        if (gap >= 0 && address.indexOf("::", gap + 1) >= 0) {
+            return null;
+        }
+        if (gap < 0) {
+            return parseGroups(address, bytes, 0) == 16 ? bytes : null;
+        }
+        byte[] tail = new byte[16];
+        // an embedded IPv4 address can only end the literal
+        if (address.lastIndexOf('.') >= 0 && address.lastIndexOf('.') < gap) {
+            return null;
+        }
+        int head = gap == 0 ? 0 : parseGroups(address.substring(0, gap), bytes, 0);
+        int tailLength = gap + 2 == address.length() ? 0 : parseGroups(address.substring(gap + 2), tail, 0);
+        // "::" stands for at least one group of zeros
+        if (head < 0 || tailLength < 0 || head + tailLength > 14) {
+            return null;
+        }
+        System.arraycopy(tail, 0, bytes, 16 - tailLength, tailLength);
+        return bytes;
+    }
+
+    /**
+     * @return the number of bytes written, or -1 if the groups are malformed; a trailing IPv4 literal
+     * counts as two groups
+     */
+    private static int parseGroups(String groups, byte[] into, int offset) {
+        int position = offset;
+        int start = 0;
+        while (true) {
+            int colon = groups.indexOf(':', start);
+            String group = colon < 0 ? groups.substring(start) : groups.substring(start, colon);
+            if (colon < 0 && group.indexOf('.') >= 0) {
+                return position + 4 <= 16 && parseIpv4(group, into, position) ? position + 4 - offset : -1;
+            }
+            if (group.isEmpty() || group.length() > 4 || position + 2 > 16) {
+                return -1;
+            }
+            int value = 0;
+            for (int i = 0; i < group.length(); i++) {
+                int digit = hexDigit(group.charAt(i));
+                if (digit < 0) {
+                    return -1;
+                }
+                value = (value << 4) | digit;
+            }
+            into[position++] = (byte) (value >>> 8);
+            into[position++] = (byte) value;
+            if (colon < 0) {
+                return position - offset;
+            }
+            start = colon + 1;
+        }
+    }
+
+    // Character.digit would also accept non-ASCII digits
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private record Network(byte[] address, int prefix) {
+
+        boolean contains(byte[] candidate) {
+            if (candidate.length != address.length) {
+                return false;
+            }
+            int fullBytes = prefix / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (candidate[i] != address[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefix % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits);
+            return (candidate[fullBytes] & mask) == (address[fullBytes] & mask);
+        }
+    }
+}
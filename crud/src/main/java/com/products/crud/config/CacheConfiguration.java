@@ -0,0 +1,21 @@
+package com.products.crud.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfiguration {
+
+    // stock increases and decreases leave productSearch alone, so stock-range filters can be stale for up to this long
+    @Bean
+    public RedisCacheManagerBuilderCustomizer productSearchTtl(
+            @Value("${inventory.cache.product-search-ttl:PT30S}") Duration ttl) {
+        return builder -> builder.withCacheConfiguration("productSearch",
+                RedisCacheConfiguration.defaultCacheConfig().entryTtl(ttl));
+    }
+}
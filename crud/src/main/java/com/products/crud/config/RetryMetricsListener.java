@@ -0,0 +1,28 @@
+package com.products.crud.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.stereotype.Component;
+
+// picked up by @EnableRetry as a global listener, so every @Retryable method is counted
+@Component
+@RequiredArgsConstructor
+public class RetryMetricsListener implements RetryListener {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        Object name = context.getAttribute(RetryContext.NAME);
+        Counter.builder("inventory.retry.failed_attempts")
+                .description("Failed attempts of @Retryable methods, e.g. optimistic lock conflicts")
+                .tag("method", name != null ? name.toString() : "unknown")
+                .tag("exception", throwable.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,59 @@
+package com.products.crud.controller;
+
+import com.products.crud.DTOs.ProductResponse;
+import com.products.crud.DTOs.ProductRevision;
+import com.products.crud.exception.PreconditionFailedException;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+// ETags are "<version>-<stock>": the stock engine changes stock without bumping Product.version
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String forProduct(ProductResponse product) {
+        return "\"" + product.getVersion() + "-" + product.getStockQuantity() + "\"";
+    }
+
+    // weak, since the same list can be serialized differently (e.g. page metadata)
+    static String forProducts(Collection<ProductResponse> products, String qualifier) {
+        StringBuilder state = new StringBuilder(qualifier);
+        for (ProductResponse product : products) {
+            state.append('|').append(product.getId()).append(':').append(product.getVersion())
+                    .append(':').append(product.getStockQuantity());
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * @return the revision the client expects, or null if the header is absent or "*"
+     */
+    static ProductRevision expectedRevision(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        // If-Match uses strong comparison, so weak or malformed tags can never match
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new PreconditionFailedException("If-Match must be a single strong ETag returned by this API.");
+        }
+        String value = tag.substring(1, tag.length() - 1);
+        int separator = value.indexOf('-');
+        if (separator < 0) {
+            throw new PreconditionFailedException("If-Match must be a single strong ETag returned by this API.");
+        }
+        try {
+            int version = Integer.parseInt(value.substring(0, separator));
+            int stock = Integer.parseInt(value.substring(separator + 1));
+            if (version >= 0 && stock >= 0) {
+                return new ProductRevision(version, stock);
+            }
+        } catch (NumberFormatException e) {
+            // falls through to the same rejection as any other malformed tag
+        }
+        throw new PreconditionFailedException("If-Match must be a single strong ETag returned by this API.");
+    }
+}
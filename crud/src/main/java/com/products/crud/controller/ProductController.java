@@ -2,8 +2,11 @@ package com.products.crud.controller;
 
 import com.products.crud.DTOs.ProductRequest;
 import com.products.crud.DTOs.ProductResponse;
+import com.products.crud.DTOs.ProductSearchCriteria;
+import com.products.crud.DTOs.ProductSearchResponse;
 import com.products.crud.DTOs.StockUpdate;
 import com.products.crud.service.ProductService;
+import com.products.crud.service.StockService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,9 +16,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.boot.autoconfigure.graphql.GraphQlProperties;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -30,6 +35,7 @@ import java.util.UUID;
 public class ProductController {
 
     private final ProductService productService;
+    private final StockService stockService;   // the stock engine when enabled, otherwise productService
 
 
 
@@ -39,6 +45,10 @@ public class ProductController {
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductResponse.class))),
             @ApiResponse(responseCode = "400", description = "Invalid input or product with name already exists",
                     content = @Content),
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded for this client, see Retry-After",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Endpoint overloaded, see Retry-After",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
@@ -55,29 +65,44 @@ public class ProductController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product found",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Product unchanged since the ETag in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Product not found",
                     content = @Content),
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded for this client, see Retry-After",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Endpoint overloaded, see Retry-After",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@Parameter(description = "ID of the product to be retrieved", required = true)
                                                           @PathVariable UUID id){
-        ProductResponse response = productService.getProductById(id);
-        return ResponseEntity.ok(response);
+        ProductResponse response = stockService.withCurrentStock(productService.getProductById(id));
+        // a matching If-None-Match is answered with 304 before the body is written
+        return ResponseEntity.ok().eTag(ETags.forProduct(response)).body(response);
     }
 
     @Operation(summary = "Get all products with pagination")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of products",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Page.class))),
+            @ApiResponse(responseCode = "304", description = "Page unchanged since the ETag in If-None-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded for this client, see Retry-After",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Endpoint overloaded, see Retry-After",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @GetMapping
     public ResponseEntity<Page<ProductResponse>> getAllProducts(@Parameter(description = "Pagination and sorting information")Pageable pageable){
-        Page<ProductResponse> products = productService.getAllProducts(pageable);
-        return ResponseEntity.ok(products);
+        Page<ProductResponse> products = productService.getAllProducts(pageable).map(stockService::withCurrentStock);
+        String eTag = ETags.forProducts(products.getContent(),
+                products.getNumber() + "/" + products.getSize() + "/" + products.getTotalElements() + "/" + products.getSort());
+        return ResponseEntity.ok().eTag(eTag).body(products);
     }
 
 
@@ -87,13 +112,48 @@ public class ProductController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of low stock products",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = List.class))),
+            @ApiResponse(responseCode = "304", description = "List unchanged since the ETag in If-None-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded for this client, see Retry-After",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Endpoint overloaded, see Retry-After",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @GetMapping("/low-stock")
     public ResponseEntity<List<ProductResponse>> getLowStockProducts(){
-        List<ProductResponse> lowStockProducts = productService.getLowStockProducts();
-        return ResponseEntity.ok(lowStockProducts);
+        List<ProductResponse> lowStockProducts = productService.getLowStockProducts().stream()
+                .map(stockService::withCurrentStock)
+                .filter(product -> product.getStockQuantity() <= product.getLowStockThreshold())
+                .toList();
+        return ResponseEntity.ok().eTag(ETags.forProducts(lowStockProducts, "low-stock")).body(lowStockProducts);
+    }
+
+
+
+
+    @Operation(summary = "Search products by name and stock level",
+            description = "Filters by name prefix (match=PREFIX) or substring (match=CONTAINS), stock range and " +
+                    "low stock flag. Results are ordered by name; pass nextCursor back as cursor to fetch the next page.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching products",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductSearchResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid filter, page size or cursor",
+                    content = @Content),
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded for this client, see Retry-After",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Endpoint overloaded, see Retry-After",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content)
+    })
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResponse> searchProducts(@Valid @ParameterObject ProductSearchCriteria criteria){
+        ProductSearchResponse response = productService.searchProducts(criteria);
+        return ResponseEntity.ok(new ProductSearchResponse(
+                response.getItems().stream().map(stockService::withCurrentStock).toList(),
+                response.getNextCursor()));
     }
 
 
@@ -109,15 +169,22 @@ public class ProductController {
                     content = @Content),
             @ApiResponse(responseCode = "409", description = "Conflict due to concurrent modification",
                     content = @Content),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current version and stock",
+                    content = @Content),
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded for this client or product, see Retry-After",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Endpoint overloaded, see Retry-After",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponse> updateProduct(
             @Parameter(description = "ID of the product to update") @PathVariable UUID id,
+            @Parameter(description = "ETag of the version being updated") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody ProductRequest productRequest) {
-        ProductResponse response = productService.updateProduct(id, productRequest);
-        return ResponseEntity.ok(response);
+        ProductResponse response = productService.updateProduct(id, productRequest, ETags.expectedRevision(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.forProduct(response)).body(response);
     }
 
 
@@ -130,15 +197,22 @@ public class ProductController {
                     content = @Content),
             @ApiResponse(responseCode = "404", description = "Product not found",
                     content = @Content),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current version and stock",
+                    content = @Content),
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded for this client or product, see Retry-After",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Endpoint overloaded, see Retry-After",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @PatchMapping("/{id}/increase-stock")
     public ResponseEntity<ProductResponse> increaseStock(
             @Parameter(description = "ID of the product to update stock for") @PathVariable UUID id,
+            @Parameter(description = "ETag of the version being updated") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody StockUpdate stockUpdate) {
-        ProductResponse response = productService.increaseStock(id, stockUpdate.getQuantity());
-        return ResponseEntity.ok(response);
+        ProductResponse response = stockService.increaseStock(id, stockUpdate.getQuantity(), ETags.expectedRevision(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.forProduct(response)).body(response);
     }
 
 
@@ -152,15 +226,22 @@ public class ProductController {
                     content = @Content),
             @ApiResponse(responseCode = "404", description = "Product not found",
                     content = @Content),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current version and stock",
+                    content = @Content),
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded for this client or product, see Retry-After",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Endpoint overloaded, see Retry-After",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
     @PatchMapping("/{id}/decrease-stock")
     public ResponseEntity<ProductResponse> decreaseStock(
             @Parameter(description = "ID of the product to update stock for") @PathVariable UUID id,
+            @Parameter(description = "ETag of the version being updated") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody StockUpdate stockUpdate) {
-        ProductResponse response = productService.decreaseStock(id, stockUpdate.getQuantity());
-        return ResponseEntity.ok(response);
+        ProductResponse response = stockService.decreaseStock(id, stockUpdate.getQuantity(), ETags.expectedRevision(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.forProduct(response)).body(response);
     }
 
 
@@ -172,6 +253,10 @@ public class ProductController {
                     content = @Content),
             @ApiResponse(responseCode = "404", description = "Product not found",
                     content = @Content),
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded for this client or product, see Retry-After",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Endpoint overloaded, see Retry-After",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content)
     })
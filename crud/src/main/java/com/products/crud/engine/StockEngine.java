@@ -0,0 +1,179 @@
+package com.products.crud.engine;
+
+import com.products.crud.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Single-node mode where stock lives in memory and Postgres is brought up to date by
+ * {@link StockWriteBehind}. Every change is logged to the {@link WriteAheadLog} before it
+ * is applied, and on startup the table is seeded from Postgres and the log replayed on top.
+ */
+@Component
+@ConditionalOnProperty(prefix = "inventory.engine", name = "enabled", havingValue = "true")
+@Slf4j
+public class StockEngine implements StockTable.ChangeListener {
+
+    private final StockEngineProperties properties;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final StockTable table;
+    private final WriteAheadLog wal;
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+    private volatile boolean recovered;
+
+    public StockEngine(StockEngineProperties properties,
+                       ProductRepository productRepository,
+                       PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.table = new StockTable(properties.stripes(), properties.initialCapacity(), this);
+        this.wal = new WriteAheadLog(Path.of(properties.walDirectory()), properties.walSegmentBytes(),
+                TimeUnit.MICROSECONDS.toNanos(properties.groupCommitMicros()));
+    }
+
+    @PostConstruct
+    public void recover() {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<StockRow> rows = productRepository.streamStockRows()) {
+                rows.forEach(row -> table.put(row.id(), row.stockQuantity(),
+                        row.lowStockThreshold() != null ? row.lowStockThreshold() : 0));
+            }
+        });
+
+        // anything still in the log may not have reached Postgres yet
+        int replayed = wal.replay(entry -> {
+            if (entry.removed()) {
+                table.remove(entry.id());
+            } else {
+                table.put(entry.id(), entry.stock(), entry.threshold());
+            }
+            dirty.add(entry.id());
+        });
+
+        wal.start();
+        recovered = true;
+        log.info("Stock engine loaded {} products and replayed {} write-ahead log records", table.size(), replayed);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wal.close();
+    }
+
+    public void put(UUID id, int stock, int threshold) {
+        table.put(id, stock, threshold);
+        awaitCommit();
+    }
+
+    /**
+     * @return the new stock, {@link StockTable#MISSING} or {@link StockTable#STOCK_CHANGED}
+     */
+    public int compareAndPut(UUID id, int expectedStock, int stock, int threshold) {
+        int updated = table.compareAndPut(id, expectedStock, stock, threshold);
+        if (updated >= 0) {
+            awaitCommit();
+        }
+        return updated;
+    }
+
+    public void remove(UUID id) {
+        if (table.remove(id)) {
+            awaitCommit();
+        }
+    }
+
+    public int stock(UUID id) {
+        return table.stock(id);
+    }
+
+    /**
+     * @param expectedStock the stock the caller last saw, or {@link StockTable#ANY_STOCK}
+     * @return the remaining stock, {@link StockTable#MISSING}, {@link StockTable#INSUFFICIENT}
+     * or {@link StockTable#STOCK_CHANGED}
+     */
+    public int decrease(UUID id, int quantity, int expectedStock) {
+        int remaining = table.decrease(id, quantity, expectedStock);
+        if (remaining >= 0) {
+            awaitCommit();
+        }
+        return remaining;
+    }
+
+    /**
+     * @param expectedStock the stock the caller last saw, or {@link StockTable#ANY_STOCK}
+     * @return the new stock, {@link StockTable#MISSING} or {@link StockTable#STOCK_CHANGED}
+     */
+    public int increase(UUID id, int quantity, int expectedStock) {
+        int updated = table.increase(id, quantity, expectedStock);
+        if (updated >= 0) {
+            awaitCommit();
+        }
+        return updated;
+    }
+
+    @Override
+    public void onUpdate(UUID id, int stock, int threshold) {
+        if (!recovered) {
+            return;
+        }
+        // mark dirty before logging, so a record that precedes a flush mark is always picked up by that flush
+        dirty.add(id);
+        wal.appendUpdate(id, stock, threshold);
+    }
+
+    @Override
+    public void onRemove(UUID id) {
+        if (!recovered) {
+            return;
+        }
+        dirty.add(id);
+        wal.appendRemove(id);
+    }
+
+    long walSegment() {
+        return wal.currentSegment();
+    }
+
+    List<UUID> drainDirty() {
+        List<UUID> drained = new ArrayList<>();
+        Iterator<UUID> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    void markDirty(Collection<UUID> ids) {
+        dirty.addAll(ids);
+    }
+
+    void truncateWalBefore(long segment) {
+        wal.deleteSegmentsBefore(segment);
+    }
+
+    private void awaitCommit() {
+        if (properties.syncCommit()) {
+            wal.awaitDurable(wal.position());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.products.crud.engine;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@ConditionalOnProperty(prefix = "inventory.engine", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(StockEngineProperties.class)
+@EnableScheduling
+public class StockEngineConfiguration {
+}
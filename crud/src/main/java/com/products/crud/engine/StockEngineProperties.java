@@ -0,0 +1,17 @@
+package com.products.crud.engine;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "inventory.engine")
+public record StockEngineProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/stock-wal") String walDirectory,
+        @DefaultValue("67108864") int walSegmentBytes,
+        @DefaultValue("64") int stripes,
+        @DefaultValue("65536") int initialCapacity,
+        @DefaultValue("200") long groupCommitMicros,
+        @DefaultValue("true") boolean syncCommit,
+        @DefaultValue("1000") long flushIntervalMs,
+        @DefaultValue("500") int flushBatchSize) {
+}
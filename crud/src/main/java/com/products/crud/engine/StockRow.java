@@ -0,0 +1,7 @@
+package com.products.crud.engine;
+
+import java.util.UUID;
+
+// projection used to seed the engine without loading full Product entities
+public record StockRow(UUID id, Integer stockQuantity, Integer lowStockThreshold) {
+}
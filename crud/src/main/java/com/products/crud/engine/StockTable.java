@@ -0,0 +1,374 @@
+package com.products.crud.engine;
+
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open-addressing map from product id to primitive stock and threshold values.
+ * Keys are spread over independently locked stripes; reads use optimistic stamps
+ * and only fall back to a read lock when they race with a writer on the same stripe.
+ */
+public final class StockTable {
+
+    public static final int MISSING = -1;
+    public static final int INSUFFICIENT = -2;
+    public static final int STOCK_CHANGED = -3;
+    public static final int ANY_STOCK = -1;
+
+    /**
+     * Called under the stripe lock before a change is applied, so the order of
+     * callbacks for a given id always matches the order of its updates.
+     */
+    public interface ChangeListener {
+        void onUpdate(UUID id, int stock, int threshold);
+
+        void onRemove(UUID id);
+    }
+
+    private static final int MIN_STRIPE_CAPACITY = 16;
+    private static final int MAX_STRIPE_CAPACITY = 1 << 30;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int stripeShift;
+    private final ChangeListener listener;
+
+    public StockTable(int stripeCount, int initialCapacity, ChangeListener listener) {
+        int count = ceilPowerOfTwo(Math.max(1, stripeCount));
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        this.stripeShift = Integer.numberOfTrailingZeros(count);
+        this.listener = listener;
+
+        // keep the load factor at or below 1/2 from the start
+        long perStripe = Math.max(MIN_STRIPE_CAPACITY, (long) initialCapacity * 2 / count);
+        int capacity = ceilPowerOfTwo((int) Math.min(MAX_STRIPE_CAPACITY, perStripe));
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(capacity);
+        }
+    }
+
+    public int stock(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int hash = hash(msb, lsb);
+        Stripe stripe = stripes[hash & stripeMask];
+        int slotHash = hash >>> stripeShift;
+
+        long stamp = stripe.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            Slots slots = stripe.slots;
+            int index = slots.indexOf(msb, lsb, slotHash);
+            int value = index < 0 ? MISSING : slots.stock[index];
+            if (stripe.lock.validate(stamp)) {
+                return value;
+            }
+        }
+
+        stamp = stripe.lock.readLock();
+        try {
+            Slots slots = stripe.slots;
+            int index = slots.indexOf(msb, lsb, slotHash);
+            return index < 0 ? MISSING : slots.stock[index];
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean contains(UUID id) {
+        return stock(id) != MISSING;
+    }
+
+    /**
+     * @return the remaining stock, {@link #MISSING} or {@link #INSUFFICIENT}
+     */
+    public int decrease(UUID id, int quantity) {
+        return decrease(id, quantity, ANY_STOCK);
+    }
+
+    /**
+     * Decreases only if the current stock equals expectedStock (or expectedStock is {@link #ANY_STOCK}).
+     *
+     * @return the remaining stock, {@link #MISSING}, {@link #INSUFFICIENT} or {@link #STOCK_CHANGED}
+     */
+    public int decrease(UUID id, int quantity, int expectedStock) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int hash = hash(msb, lsb);
+        Stripe stripe = stripes[hash & stripeMask];
+
+        long stamp = stripe.lock.writeLock();
+        try {
+            Slots slots = stripe.slots;
+            int index = slots.indexOf(msb, lsb, hash >>> stripeShift);
+            if (index < 0) {
+                return MISSING;
+            }
+            int current = slots.stock[index];
+            if (expectedStock != ANY_STOCK && current != expectedStock) {
+                return STOCK_CHANGED;
+            }
+            if (current < quantity) {
+                return INSUFFICIENT;
+            }
+            int updated = current - quantity;
+            listener.onUpdate(id, updated, slots.threshold[index]);
+            slots.stock[index] = updated;
+            return updated;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the new stock or {@link #MISSING}
+     */
+    public int increase(UUID id, int quantity) {
+        return increase(id, quantity, ANY_STOCK);
+    }
+
+    /**
+     * Increases only if the current stock equals expectedStock (or expectedStock is {@link #ANY_STOCK}).
+     *
+     * @return the new stock, {@link #MISSING} or {@link #STOCK_CHANGED}
+     */
+    public int increase(UUID id, int quantity, int expectedStock) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int hash = hash(msb, lsb);
+        Stripe stripe = stripes[hash & stripeMask];
+
+        long stamp = stripe.lock.writeLock();
+        try {
+            Slots slots = stripe.slots;
+            int index = slots.indexOf(msb, lsb, hash >>> stripeShift);
+            if (index < 0) {
+                return MISSING;
+            }
+            int current = slots.stock[index];
+            if (expectedStock != ANY_STOCK && current != expectedStock) {
+                return STOCK_CHANGED;
+            }
+            if (current > Integer.MAX_VALUE - quantity) {
+                throw new IllegalArgumentException("Stock quantity would overflow for product " + id);
+            }
+            int updated = current + quantity;
+            listener.onUpdate(id, updated, slots.threshold[index]);
+            slots.stock[index] = updated;
+            return updated;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    public void put(UUID id, int stock, int threshold) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int hash = hash(msb, lsb);
+        Stripe stripe = stripes[hash & stripeMask];
+        int slotHash = hash >>> stripeShift;
+
+        long stamp = stripe.lock.writeLock();
+        try {
+            Slots slots = stripe.slots;
+            int index = slots.indexOf(msb, lsb, slotHash);
+            listener.onUpdate(id, stock, threshold);
+            if (index >= 0) {
+                slots.stock[index] = stock;
+                slots.threshold[index] = threshold;
+                return;
+            }
+            if ((stripe.size + 1) * 2L > slots.capacity()) {
+                slots = grow(stripe);
+            }
+            index = slots.freeIndex(slotHash);
+            slots.msb[index] = msb;
+            slots.lsb[index] = lsb;
+            slots.stock[index] = stock;
+            slots.threshold[index] = threshold;
+            slots.used[index] = true;
+            stripe.size++;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replaces stock and threshold only if the current stock equals expectedStock.
+     *
+     * @return the new stock, {@link #MISSING} or {@link #STOCK_CHANGED}
+     */
+    public int compareAndPut(UUID id, int expectedStock, int stock, int threshold) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int hash = hash(msb, lsb);
+        Stripe stripe = stripes[hash & stripeMask];
+
+        long stamp = stripe.lock.writeLock();
+        try {
+            Slots slots = stripe.slots;
+            int index = slots.indexOf(msb, lsb, hash >>> stripeShift);
+            if (index < 0) {
+                return MISSING;
+            }
+            if (slots.stock[index] != expectedStock) {
+                return STOCK_CHANGED;
+            }
+            listener.onUpdate(id, stock, threshold);
+            slots.stock[index] = stock;
+            slots.threshold[index] = threshold;
+            return stock;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int hash = hash(msb, lsb);
+        Stripe stripe = stripes[hash & stripeMask];
+
+        long stamp = stripe.lock.writeLock();
+        try {
+            Slots slots = stripe.slots;
+            int index = slots.indexOf(msb, lsb, hash >>> stripeShift);
+            if (index < 0) {
+                return false;
+            }
+            listener.onRemove(id);
+            deleteAt(slots, index);
+            stripe.size--;
+            return true;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.readLock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    private Slots grow(Stripe stripe) {
+        Slots old = stripe.slots;
+        if (old.capacity() >= MAX_STRIPE_CAPACITY) {
+            throw new IllegalStateException("Stock table stripe is full");
+        }
+        Slots grown = new Slots(old.capacity() * 2);
+        for (int i = 0; i < old.capacity(); i++) {
+            if (old.used[i]) {
+                int index = grown.freeIndex(hash(old.msb[i], old.lsb[i]) >>> stripeShift);
+                grown.msb[index] = old.msb[i];
+                grown.lsb[index] = old.lsb[i];
+                grown.stock[index] = old.stock[i];
+                grown.threshold[index] = old.threshold[i];
+                grown.used[index] = true;
+            }
+        }
+        // publish the new arrays in one step so optimistic readers never mix generations
+        stripe.slots = grown;
+        return grown;
+    }
+
+    // backward-shift deletion keeps linear probe chains intact without tombstones
+    private void deleteAt(Slots slots, int index) {
+        int mask = slots.mask;
+        int hole = index;
+        int next = index;
+        while (true) {
+            next = (next + 1) & mask;
+            if (!slots.used[next]) {
+                break;
+            }
+            int home = (hash(slots.msb[next], slots.lsb[next]) >>> stripeShift) & mask;
+            boolean canMove = hole <= next
+                    ? (home <= hole || home > next)
+                    : (home <= hole && home > next);
+            if (canMove) {
+                slots.msb[hole] = slots.msb[next];
+                slots.lsb[hole] = slots.lsb[next];
+                slots.stock[hole] = slots.stock[next];
+                slots.threshold[hole] = slots.threshold[next];
+                hole = next;
+            }
+        }
+        slots.used[hole] = false;
+    }
+
+    // package-private so tests can pick ids that collide on a given slot
+    static int hash(long msb, long lsb) {
+        long h = msb ^ (lsb * 0x9E3779B97F4A7C15L);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static int ceilPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    private static final class Stripe {
+        final StampedLock lock = new StampedLock();
+        volatile Slots slots;
+        int size;
+
+        Stripe(int capacity) {
+            this.slots = new Slots(capacity);
+        }
+    }
+
+    private static final class Slots {
+        final long[] msb;
+        final long[] lsb;
+        final int[] stock;
+        final int[] threshold;
+        final boolean[] used;
+        final int mask;
+
+        Slots(int capacity) {
+            this.msb = new long[capacity];
+            this.lsb = new long[capacity];
+            this.stock = new int[capacity];
+            this.threshold = new int[capacity];
+            this.used = new boolean[capacity];
+            this.mask = capacity - 1;
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        // bounded so that an optimistic reader racing a writer cannot spin forever
+        int indexOf(long keyMsb, long keyLsb, int slotHash) {
+            int index = slotHash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                if (!used[index]) {
+                    return -1;
+                }
+                if (msb[index] == keyMsb && lsb[index] == keyLsb) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        int freeIndex(int slotHash) {
+            int index = slotHash & mask;
+            while (used[index]) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+    }
+}
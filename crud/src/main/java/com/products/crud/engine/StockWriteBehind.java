@@ -0,0 +1,72 @@
+package com.products.crud.engine;
+
+import com.products.crud.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Periodically copies changed stock values from the {@link StockEngine} into Postgres.
+ * Once a whole drain has been persisted, log segments written before it started are deleted.
+ */
+@Component
+@ConditionalOnProperty(prefix = "inventory.engine", name = "enabled", havingValue = "true")
+@Slf4j
+public class StockWriteBehind {
+
+    private final StockEngine stockEngine;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public StockWriteBehind(StockEngine stockEngine,
+                            ProductRepository productRepository,
+                            PlatformTransactionManager transactionManager,
+                            StockEngineProperties properties) {
+        this.stockEngine = stockEngine;
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, properties.flushBatchSize());
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.engine.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        long mark = stockEngine.walSegment();
+        List<UUID> ids = stockEngine.drainDirty();
+        if (ids.isEmpty()) {
+            stockEngine.truncateWalBefore(mark);
+            return;
+        }
+
+        try {
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<UUID> batch = ids.subList(from, Math.min(ids.size(), from + batchSize));
+                LocalDateTime now = LocalDateTime.now();
+                transactionTemplate.executeWithoutResult(status -> batch.forEach(id -> {
+                    int stock = stockEngine.stock(id);
+                    if (stock != StockTable.MISSING) {
+                        productRepository.updateStockQuantity(id, stock, now);
+                    }
+                }));
+            }
+            stockEngine.truncateWalBefore(mark);
+            log.debug("Wrote stock for {} products back to the database", ids.size());
+        } catch (RuntimeException e) {
+            log.error("Stock write-behind failed for {} products, will retry: {}", ids.size(), e.getMessage());
+            stockEngine.markDirty(ids);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,406 @@
+package com.products.crud.engine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of absolute stock values, written into memory-mapped segment files.
+ * Appenders reserve a record slot with a single atomic increment and fill it in place, so
+ * callers holding a stock table stripe lock never wait on each other here. A background
+ * committer forces the pages holding the longest run of completed records since the
+ * previous fsync to disk every group commit interval.
+ *
+ * Record layout (32 bytes): type, 3 bytes padding, stock, id msb, id lsb, threshold, CRC32C.
+ * The first record of every segment is a header naming the first segment of its run (one
+ * {@link #start()}), and a zero type marks a slot that was never completed.
+ */
+@Slf4j
+public final class WriteAheadLog implements Closeable {
+
+    public record Entry(UUID id, boolean removed, int stock, int threshold) {
+    }
+
+    static final int RECORD_BYTES = 32;
+    private static final int CHECKSUMMED_BYTES = 28;
+    private static final byte UPDATE = 1;
+    private static final byte REMOVE = 2;
+    private static final byte HEADER = 3;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    // the type byte is published last with release semantics, so a non-zero type means the slot is complete
+    private static final VarHandle RECORD_HEAD =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int recordsPerSegment;
+    private final long groupCommitNanos;
+
+    private final Map<Long, Segment> openSegments = new ConcurrentHashMap<>();
+    private final Object segmentLock = new Object();
+    private final AtomicLong reserved = new AtomicLong();
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableAdvanced = durableLock.newCondition();
+
+    private volatile long firstSegment = -1;
+    private volatile long durable;
+    private volatile boolean closed;
+    private volatile boolean released;
+    private Thread committer;
+
+    public WriteAheadLog(Path directory, int segmentBytes, long groupCommitNanos) {
+        this.directory = directory;
+        this.segmentBytes = Math.max(2 * RECORD_BYTES, segmentBytes - segmentBytes % RECORD_BYTES);
+        this.recordsPerSegment = this.segmentBytes / RECORD_BYTES - 1;
+        this.groupCommitNanos = Math.max(1_000, groupCommitNanos);
+    }
+
+    /**
+     * Feeds every intact record of the existing segments, oldest first, to the consumer.
+     * Within a run, replay stops at the first incomplete or torn record, since nothing after
+     * it was ever reported durable. Must be called before {@link #start()}.
+     *
+     * @return the number of records replayed
+     */
+    public int replay(Consumer<Entry> consumer) {
+        int replayed = 0;
+        long run = -1;
+        boolean runEnded = false;
+        CRC32C crc = new CRC32C();
+        for (long id : existingSegments()) {
+            Path path = segmentPath(id);
+            try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer segmentBuffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                if (segmentBuffer.capacity() < RECORD_BYTES || segmentBuffer.get(0) != HEADER
+                        || !intact(segmentBuffer, 0, crc)) {
+                    log.warn("Write-ahead log segment {} has no valid header, skipping it", path);
+                    runEnded = true;
+                    continue;
+                }
+                long segmentRun = segmentBuffer.getLong(8);
+                if (segmentRun != run) {
+                    run = segmentRun;
+                    runEnded = false;
+                }
+                if (runEnded) {
+                    continue;
+                }
+                for (int start = RECORD_BYTES; start + RECORD_BYTES <= segmentBuffer.capacity(); start += RECORD_BYTES) {
+                    byte type = segmentBuffer.get(start);
+                    if (type == 0) {
+                        runEnded = true;
+                        break;
+                    }
+                    if (!intact(segmentBuffer, start, crc)) {
+                        log.warn("Torn write-ahead log record in {} at offset {}, ignoring the rest of its run", path, start);
+                        runEnded = true;
+                        break;
+                    }
+                    int stock = segmentBuffer.getInt(start + 4);
+                    UUID productId = new UUID(segmentBuffer.getLong(start + 8), segmentBuffer.getLong(start + 16));
+                    int threshold = segmentBuffer.getInt(start + 24);
+                    consumer.accept(new Entry(productId, type == REMOVE, stock, threshold));
+                    replayed++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to replay write-ahead log segment " + path, e);
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Opens a fresh segment after the existing ones and starts the group committer.
+     */
+    public void start() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open write-ahead log in " + directory, e);
+        }
+        List<Long> existing = existingSegments();
+        firstSegment = existing.isEmpty() ? 0 : existing.get(existing.size() - 1) + 1;
+        segment(firstSegment);
+        committer = new Thread(this::commitLoop, "stock-wal-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    public void appendUpdate(UUID id, int stock, int threshold) {
+        append(UPDATE, id, stock, threshold);
+    }
+
+    public void appendRemove(UUID id) {
+        append(REMOVE, id, 0, 0);
+    }
+
+    /**
+     * @return the logical end of the log; pass it to {@link #awaitDurable(long)}
+     */
+    public long position() {
+        return reserved.get();
+    }
+
+    public long currentSegment() {
+        long first = firstSegment;
+        return first < 0 ? -1 : first + reserved.get() / recordsPerSegment;
+    }
+
+    public void awaitDurable(long position) {
+        if (durable >= position) {
+            return;
+        }
+        durableLock.lock();
+        try {
+            while (durable < position) {
+                if (released) {
+                    throw new IllegalStateException("Write-ahead log closed before the record became durable");
+                }
+                durableAdvanced.awaitNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for write-ahead log commit", e);
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes segments older than the given one once their contents are persisted elsewhere.
+     */
+    public void deleteSegmentsBefore(long segmentId) {
+        for (long id : existingSegments()) {
+            if (id >= segmentId) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(segmentPath(id));
+            } catch (IOException e) {
+                log.warn("Could not delete write-ahead log segment {}: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (committer != null) {
+            LockSupport.unpark(committer);
+            try {
+                committer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            commit();
+        } catch (RuntimeException e) {
+            log.warn("Final write-ahead log commit failed: {}", e.getMessage());
+        }
+        synchronized (segmentLock) {
+            for (Segment segment : openSegments.values()) {
+                segment.close();
+            }
+            openSegments.clear();
+        }
+        released = true;
+        markDurable(durable);
+    }
+
+    private void append(byte type, UUID id, int stock, int threshold) {
+        if (closed || firstSegment < 0) {
+            throw new IllegalStateException("Write-ahead log is not open");
+        }
+        long record = reserved.getAndIncrement();
+        Segment segment = segment(firstSegment + record / recordsPerSegment);
+        write(segment.buffer, slotOffset(record), type, stock,
+                id.getMostSignificantBits(), id.getLeastSignificantBits(), threshold);
+    }
+
+    private int slotOffset(long record) {
+        return (int) (record % recordsPerSegment + 1) * RECORD_BYTES;
+    }
+
+    // the checksum is computed on a private copy, then the body is written and the type published last
+    private static void write(MappedByteBuffer buffer, int start, byte type, int stock, long msb, long lsb, int threshold) {
+        Scratch scratch = SCRATCH.get();
+        ByteBuffer record = scratch.record;
+        record.putInt(0, type << 24)
+                .putInt(4, stock)
+                .putLong(8, msb)
+                .putLong(16, lsb)
+                .putInt(24, threshold);
+        scratch.crc.reset();
+        scratch.crc.update(record.array(), 0, CHECKSUMMED_BYTES);
+
+        buffer.putInt(start + 4, stock)
+                .putLong(start + 8, msb)
+                .putLong(start + 16, lsb)
+                .putInt(start + 24, threshold)
+                .putInt(start + CHECKSUMMED_BYTES, (int) scratch.crc.getValue());
+        RECORD_HEAD.setRelease(buffer, start, type << 24);
+    }
+
+    private static boolean intact(ByteBuffer buffer, int start, CRC32C crc) {
+        crc.reset();
+        crc.update(buffer.slice(start, CHECKSUMMED_BYTES));
+        return (int) crc.getValue() == buffer.getInt(start + CHECKSUMMED_BYTES);
+    }
+
+    // only the first appender into a new segment takes the lock, once every recordsPerSegment records
+    private Segment segment(long id) {
+        Segment segment = openSegments.get(id);
+        if (segment != null) {
+            return segment;
+        }
+        synchronized (segmentLock) {
+            segment = openSegments.get(id);
+            if (segment == null) {
+                segment = openSegment(id);
+                openSegments.put(id, segment);
+            }
+            return segment;
+        }
+    }
+
+    private Segment openSegment(long id) {
+        try {
+            FileChannel channel = FileChannel.open(segmentPath(id),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            write(buffer, 0, HEADER, 0, firstSegment, 0, 0);
+            return new Segment(channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open write-ahead log segment " + id, e);
+        }
+    }
+
+    private void commitLoop() {
+        while (!closed) {
+            LockSupport.parkNanos(groupCommitNanos);
+            try {
+                commit();
+            } catch (RuntimeException e) {
+                log.error("Write-ahead log group commit failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    // called by the committer thread, and by close() once the committer has stopped
+    private void commit() {
+        long from = durable;
+        long limit = reserved.get();
+        long completed = from;
+        while (completed < limit) {
+            Segment segment = openSegments.get(firstSegment + completed / recordsPerSegment);
+            if (segment == null || (int) RECORD_HEAD.getAcquire(segment.buffer, slotOffset(completed)) == 0) {
+                break;
+            }
+            completed++;
+        }
+        if (completed == from) {
+            return;
+        }
+
+        // msync only the pages holding the new records, not the whole mapping
+        long record = from;
+        while (record < completed) {
+            long id = firstSegment + record / recordsPerSegment;
+            long segmentEnd = (id - firstSegment + 1) * recordsPerSegment;
+            long end = Math.min(completed, segmentEnd);
+            // a segment's header is written when it is opened and made durable with its first records
+            int start = record % recordsPerSegment == 0 ? 0 : slotOffset(record);
+            int length = slotOffset(end - 1) + RECORD_BYTES - start;
+            openSegments.get(id).buffer.force(start, length);
+            record = end;
+        }
+        markDurable(completed);
+
+        // every record of a segment before the one holding the next slot is now complete and on disk
+        long nextSegment = firstSegment + completed / recordsPerSegment;
+        for (long id = firstSegment + from / recordsPerSegment; id < nextSegment; id++) {
+            Segment segment = openSegments.remove(id);
+            if (segment != null) {
+                segment.close();
+            }
+        }
+    }
+
+    private void markDurable(long position) {
+        durableLock.lock();
+        try {
+            if (position > durable) {
+                durable = position;
+            }
+            durableAdvanced.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private List<Long> existingSegments() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list write-ahead log segments in " + directory, e);
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private record Segment(FileChannel channel, MappedByteBuffer buffer) {
+
+        // callers commit first, and commit() has already forced every completed record
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close write-ahead log segment: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static final class Scratch {
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        final CRC32C crc = new CRC32C();
+    }
+}
@@ -19,7 +19,10 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_stock_quantity", columnList = "stock_quantity"),
+        @Index(name = "idx_products_search_name", columnList = "search_name, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -35,6 +38,12 @@ public class Product {
     @Column(name = "name", nullable = false, unique = true)
     private String name;
 
+    // lower(name) in the C collation, so one btree on (search_name, id) serves prefix ranges, the search
+    // ORDER BY and its keyset cursor; maintained by Postgres, never written by Hibernate
+    @Column(name = "search_name", insertable = false, updatable = false,
+            columnDefinition = "text COLLATE \"C\" GENERATED ALWAYS AS (lower(name)) STORED")
+    private String searchName;
+
     @Column(name = "description")
     private String description;
 
@@ -1,14 +1,36 @@
 package com.products.crud.repository;
 
+import com.products.crud.engine.StockRow;
 import com.products.crud.models.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, UUID> {
+public interface ProductRepository extends JpaRepository<Product, UUID>, JpaSpecificationExecutor<Product> {
 
     Optional<Product> findByName(String name);
+
+    @Query("SELECT new com.products.crud.engine.StockRow(p.id, p.stockQuantity, p.lowStockThreshold) FROM Product p")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    Stream<StockRow> streamStockRows();
+
+    // used by the stock engine write-behind; the version is left alone, since cached responses and
+    // the ETags clients hold carry it, and the engine's stock is what conditional requests compare
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = :stockQuantity, p.updatedAt = :updatedAt WHERE p.id = :id")
+    int updateStockQuantity(@Param("id") UUID id,
+                            @Param("stockQuantity") int stockQuantity,
+                            @Param("updatedAt") LocalDateTime updatedAt);
 }
@@ -0,0 +1,77 @@
+package com.products.crud.repository;
+
+import com.products.crud.DTOs.ProductSearchCursor;
+import com.products.crud.models.Product;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+// Each predicate lines up with an index declared on Product or in schema.sql,
+// so only the filters actually requested end up in the generated WHERE clause.
+public final class ProductSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private ProductSpecifications() {
+    }
+
+    // backed by idx_products_search_name (btree on search_name, id). A range rather than LIKE 'abc%',
+    // so the index is also used by generic plans, where the pattern is an unknown parameter.
+    public static Specification<Product> nameStartsWith(String normalizedName) {
+        String upperBound = successor(normalizedName);
+        return (root, query, cb) -> {
+            Predicate from = cb.greaterThanOrEqualTo(root.get("searchName"), normalizedName);
+            return upperBound != null ? cb.and(from, cb.lessThan(root.get("searchName"), upperBound)) : from;
+        };
+    }
+
+    // backed by idx_products_search_name_trgm (gin, pg_trgm); needs at least one trigram, i.e. 3 characters
+    public static Specification<Product> nameContains(String normalizedName) {
+        return (root, query, cb) ->
+                cb.like(root.get("searchName"), "%" + escapeLike(normalizedName) + "%", LIKE_ESCAPE);
+    }
+
+    // backed by idx_products_stock_quantity (btree)
+    public static Specification<Product> stockAtLeast(int minStock) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("stockQuantity"), minStock);
+    }
+
+    public static Specification<Product> stockAtMost(int maxStock) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("stockQuantity"), maxStock);
+    }
+
+    // backed by the partial index idx_products_below_threshold
+    public static Specification<Product> belowThreshold() {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.<Integer>get("stockQuantity"), root.<Integer>get("lowStockThreshold"));
+    }
+
+    // keyset pagination in (search_name, id) order; the first condition bounds the index scan
+    public static Specification<Product> after(ProductSearchCursor cursor) {
+        return (root, query, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.get("searchName"), cursor.searchName()),
+                cb.or(cb.greaterThan(root.get("searchName"), cursor.searchName()),
+                        cb.greaterThan(root.get("id"), cursor.id())));
+    }
+
+    /**
+     * @return the smallest string above every string starting with prefix, in code point order (which
+     * the C collation compares by), or null if there is none
+     */
+    static String successor(String prefix) {
+        int end = prefix.length();
+        while (end > 0) {
+            int last = prefix.codePointBefore(end);
+            end -= Character.charCount(last);
+            if (last < Character.MAX_CODE_POINT) {
+                int next = last + 1 == Character.MIN_SURROGATE ? Character.MAX_SURROGATE + 1 : last + 1;
+                return prefix.substring(0, end) + new String(Character.toChars(next));
+            }
+        }
+        return null;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,122 @@
+package com.products.crud.service;
+
+import com.products.crud.DTOs.ProductResponse;
+import com.products.crud.DTOs.ProductRevision;
+import com.products.crud.engine.StockEngine;
+import com.products.crud.engine.StockTable;
+import com.products.crud.exception.InsufficientStockException;
+import com.products.crud.exception.PreconditionFailedException;
+import com.products.crud.exception.ProductNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Engine mode: stock changes stay in memory and reach Postgres through the write-behind, so there is
+ * no transaction here. The rest of each response comes from the cached productById entry, and
+ * Postgres is only read on a cache miss.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "inventory.engine", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class EngineStockService implements StockService {
+
+    private final StockEngine stockEngine;
+    private final ProductService productService;
+    private final CacheManager cacheManager;
+
+    @Override
+    public ProductResponse increaseStock(UUID id, Integer quantity, ProductRevision expected) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity to increase must be positive.");
+        }
+        ProductResponse product = productService.getProductById(id);
+        checkExpectedVersion(product, expected);
+
+        int updated = stockEngine.increase(id, quantity, expectedStock(expected));
+        if (updated == StockTable.MISSING) {
+            throw new ProductNotFoundException("Product not found with id: " + id);
+        }
+        if (updated == StockTable.STOCK_CHANGED) {
+            throw stockChanged(id);
+        }
+        log.info("Increased stock for product {} by {}. New quantity: {}", id, quantity, updated);
+        return withStock(product, updated);
+    }
+
+    @Override
+    public ProductResponse decreaseStock(UUID id, Integer quantity, ProductRevision expected) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity to decrease must be positive.");
+        }
+        ProductResponse product = productService.getProductById(id);
+        checkExpectedVersion(product, expected);
+
+        int remaining = stockEngine.decrease(id, quantity, expectedStock(expected));
+        if (remaining == StockTable.MISSING) {
+            throw new ProductNotFoundException("Product not found with id: " + id);
+        }
+        if (remaining == StockTable.STOCK_CHANGED) {
+            throw stockChanged(id);
+        }
+        if (remaining == StockTable.INSUFFICIENT) {
+            throw new InsufficientStockException("Insufficient stock for product " + product.getName() +
+                    ". Available: " + stockEngine.stock(id) + ", Requested: " + quantity);
+        }
+        log.info("Decreased stock for product {} by {}. New quantity: {}", id, quantity, remaining);
+
+        // reads overlay the engine's stock, so the cached list only goes stale when a product joins it
+        int threshold = product.getLowStockThreshold() != null ? product.getLowStockThreshold() : 0;
+        if (remaining <= threshold && remaining + quantity > threshold) {
+            Cache lowStock = cacheManager.getCache("lowStockProducts");
+            if (lowStock != null) {
+                lowStock.clear();
+            }
+        }
+        return withStock(product, remaining);
+    }
+
+    @Override
+    public ProductResponse withCurrentStock(ProductResponse product) {
+        int stock = stockEngine.stock(product.getId());
+        return stock >= 0 ? withStock(product, stock) : product;
+    }
+
+    // the write-behind never bumps the version, so the cached one is current; stock is compared by the engine
+    private void checkExpectedVersion(ProductResponse product, ProductRevision expected) {
+        if (expected != null && !Integer.valueOf(expected.version()).equals(product.getVersion())) {
+            throw new PreconditionFailedException("Product " + product.getId() + " has version " +
+                    product.getVersion() + ", but version " + expected.version() + " was expected.");
+        }
+    }
+
+    private static int expectedStock(ProductRevision expected) {
+        return expected != null ? expected.stockQuantity() : StockTable.ANY_STOCK;
+    }
+
+    private static PreconditionFailedException stockChanged(UUID id) {
+        return new PreconditionFailedException("Stock of product " + id + " changed since the ETag in If-Match.");
+    }
+
+    // copied, the cached instance may be shared with other readers
+    private ProductResponse withStock(ProductResponse product, int stock) {
+        ProductResponse response = new ProductResponse();
+        response.setId(product.getId());
+        response.setName(product.getName());
+        response.setDescription(product.getDescription());
+        response.setStockQuantity(stock);
+        response.setLowStockThreshold(product.getLowStockThreshold());
+        response.setCreatedAt(product.getCreatedAt());
+        response.setUpdatedAt(product.getUpdatedAt());
+        response.setVersion(product.getVersion());
+        return response;
+    }
+}
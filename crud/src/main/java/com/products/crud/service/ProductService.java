@@ -2,11 +2,19 @@ package com.products.crud.service;
 
 import com.products.crud.DTOs.ProductRequest;
 import com.products.crud.DTOs.ProductResponse;
+import com.products.crud.DTOs.ProductRevision;
+import com.products.crud.DTOs.ProductSearchCriteria;
+import com.products.crud.DTOs.ProductSearchCursor;
+import com.products.crud.DTOs.ProductSearchResponse;
+import com.products.crud.engine.StockEngine;
+import com.products.crud.engine.StockTable;
 import com.products.crud.exception.InsufficientStockException;
+import com.products.crud.exception.PreconditionFailedException;
 import com.products.crud.exception.ProductNotFoundException;
 import com.products.crud.exception.ProductServiceException;
 import com.products.crud.models.Product;
 import com.products.crud.repository.ProductRepository;
+import com.products.crud.repository.ProductSpecifications;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.*;
@@ -14,20 +22,26 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class ProductService {
+public class ProductService implements StockService {
 
     private final ProductRepository productRepository;
+    private final Optional<StockEngine> stockEngine;   // present only when inventory.engine.enabled=true
 
 
 
@@ -36,7 +50,8 @@ public class ProductService {
     @Transactional
     @Caching(evict = {
             @CacheEvict(cacheNames = "productPages", allEntries = true),
-            @CacheEvict(cacheNames = "lowStockProducts", allEntries = true)
+            @CacheEvict(cacheNames = "lowStockProducts", allEntries = true),
+            @CacheEvict(cacheNames = "productSearch", allEntries = true)
     })
     public ProductResponse createProduct(ProductRequest productRequest) {
 
@@ -52,6 +67,8 @@ public class ProductService {
 
         try{
             Product savedProduct = productRepository.save(product);
+            stockEngine.ifPresent(engine -> afterCommit(() -> engine.put(savedProduct.getId(),
+                    savedProduct.getStockQuantity(), savedProduct.getLowStockThreshold())));
             return mapToProductResponse(savedProduct);
         }
         catch (DataIntegrityViolationException e){
@@ -82,8 +99,8 @@ public class ProductService {
     public List<ProductResponse> getLowStockProducts() {
         List<Product> products = productRepository.findAll();
         return products.stream()
-                .filter(p -> p.getStockQuantity() <= p.getLowStockThreshold())
                 .map(this::mapToProductResponse)
+                .filter(p -> p.getStockQuantity() <= p.getLowStockThreshold())
                 .toList();
     }
 
@@ -91,18 +108,77 @@ public class ProductService {
 
 
 
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = "productSearch", key = "#criteria.cacheKey()")
+    public ProductSearchResponse searchProducts(ProductSearchCriteria criteria) {
+        if (criteria.getMinStock() != null && criteria.getMaxStock() != null
+                && criteria.getMinStock() > criteria.getMaxStock()) {
+            throw new IllegalArgumentException("minStock cannot be greater than maxStock.");
+        }
+        String name = criteria.normalizedName();
+        if (name != null && criteria.getMatch() == ProductSearchCriteria.MatchMode.CONTAINS
+                && name.codePointCount(0, name.length()) < ProductSearchCriteria.MIN_CONTAINS_LENGTH) {
+            throw new IllegalArgumentException("Substring search needs at least " +
+                    ProductSearchCriteria.MIN_CONTAINS_LENGTH + " characters.");
+        }
+
+        Specification<Product> spec = (root, query, cb) -> cb.conjunction();
+        if (name != null) {
+            spec = spec.and(criteria.getMatch() == ProductSearchCriteria.MatchMode.CONTAINS
+                    ? ProductSpecifications.nameContains(name)
+                    : ProductSpecifications.nameStartsWith(name));
+        }
+        if (criteria.getMinStock() != null) {
+            spec = spec.and(ProductSpecifications.stockAtLeast(criteria.getMinStock()));
+        }
+        if (criteria.getMaxStock() != null) {
+            spec = spec.and(ProductSpecifications.stockAtMost(criteria.getMaxStock()));
+        }
+        if (criteria.isBelowThreshold()) {
+            spec = spec.and(ProductSpecifications.belowThreshold());
+        }
+        if (criteria.getCursor() != null && !criteria.getCursor().isBlank()) {
+            spec = spec.and(ProductSpecifications.after(ProductSearchCursor.decode(criteria.getCursor())));
+        }
+
+        // fetch one extra row to find out whether another page exists, without a COUNT(*)
+        int size = criteria.getSize() != null ? criteria.getSize() : 20;
+        List<Product> products = productRepository.findBy(spec, query -> query
+                .sortBy(Sort.by("searchName", "id"))
+                .limit(size + 1)
+                .all());
+
+        boolean hasMore = products.size() > size;
+        List<ProductResponse> items = products.stream()
+                .limit(size)
+                .map(this::mapToProductResponse)
+                .toList();
+        String nextCursor = null;
+        if (hasMore) {
+            Product last = products.get(size - 1);
+            nextCursor = new ProductSearchCursor(last.getSearchName(), last.getId()).encode();
+        }
+        return new ProductSearchResponse(items, nextCursor);
+    }
+
+
+
+
     @Transactional
     @Caching(
             put = @CachePut(cacheNames = "productById", key = "#id"),
             evict = {
                     @CacheEvict(cacheNames = "productPages", allEntries = true),
-                    @CacheEvict(cacheNames = "lowStockProducts", allEntries = true)
+                    @CacheEvict(cacheNames = "lowStockProducts", allEntries = true),
+                    @CacheEvict(cacheNames = "productSearch", allEntries = true)
             }
     )
-    public ProductResponse updateProduct(UUID id, ProductRequest request){
+    public ProductResponse updateProduct(UUID id, ProductRequest request, ProductRevision expected){
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(()-> new ProductNotFoundException("Product not found with id: "+id)
                 );
+        checkExpected(existingProduct, expected);
+        int previousThreshold = existingProduct.getLowStockThreshold() != null ? existingProduct.getLowStockThreshold() : 0;
 
         if(!existingProduct.getName().equals(request.getName()) &&
         productRepository.findByName(request.getName()).isPresent()){
@@ -120,11 +196,19 @@ public class ProductService {
                 request.getLowStockThreshold() :0
                 );
         try{
-            Product updateProduct = productRepository.save(existingProduct);
-            return mapToProductResponse(updateProduct);
+            // flush so the response (and the cached copy) carries the new version
+            Product updateProduct = productRepository.saveAndFlush(existingProduct);
+            stockEngine.ifPresent(engine -> putStock(engine, updateProduct, expected, previousThreshold));
+            ProductResponse response = mapToProductResponse(updateProduct);
+            // the engine still holds the old stock until the commit, the request's value is the new one
+            response.setStockQuantity(updateProduct.getStockQuantity());
+            return response;
         }
         catch(OptimisticLockingFailureException e){
             log.warn("Optimistic locking failure during product update for id: {}",id);
+            if (expected != null) {
+                throw new PreconditionFailedException("Product " + id + " was modified concurrently.");
+            }
             throw new ProductServiceException("failed to update product due to concurrent modification. please try again");
         }
         catch (DataIntegrityViolationException e){
@@ -145,19 +229,25 @@ public class ProductService {
                     @CacheEvict(cacheNames = "lowStockProducts", allEntries = true)
             }
     )
-    public ProductResponse increaseStock(UUID id, Integer quantity) {
+    @Override
+    public ProductResponse increaseStock(UUID id, Integer quantity, ProductRevision expected) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity to increase must be positive.");
         }
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
+        checkExpected(product, expected);
 
         product.setStockQuantity(product.getStockQuantity() + quantity);
         try {
-            Product updatedProduct = productRepository.save(product);
+            Product updatedProduct = productRepository.saveAndFlush(product);
             log.info("Increased stock for product {} by {}. New quantity: {}", id, quantity, updatedProduct.getStockQuantity());
             return mapToProductResponse(updatedProduct);
         } catch (OptimisticLockingFailureException e) {
+            if (expected != null) {
+                // the client asked for this exact version, retrying against a newer one would defeat If-Match
+                throw new PreconditionFailedException("Product " + id + " was modified concurrently.");
+            }
             log.warn("Optimistic locking failure increasing stock for product {}. Retrying...", id);
             throw e; // Re-throw to trigger @Retryable
         }
@@ -175,12 +265,14 @@ public class ProductService {
                     @CacheEvict(cacheNames = "lowStockProducts", allEntries = true)
             }
     )
-    public ProductResponse decreaseStock(UUID id, Integer quantity) {
+    @Override
+    public ProductResponse decreaseStock(UUID id, Integer quantity, ProductRevision expected) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity to decrease must be positive.");
         }
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
+        checkExpected(product, expected);
 
         if (product.getStockQuantity() < quantity) {
             throw new InsufficientStockException("Insufficient stock for product " + product.getName() +
@@ -189,10 +281,14 @@ public class ProductService {
 
         product.setStockQuantity(product.getStockQuantity() - quantity);
         try {
-            Product updatedProduct = productRepository.save(product);
+            Product updatedProduct = productRepository.saveAndFlush(product);
             log.info("Decreased stock for product {} by {}. New quantity: {}", id, quantity, updatedProduct.getStockQuantity());
             return mapToProductResponse(updatedProduct);
         } catch (OptimisticLockingFailureException e) {
+            if (expected != null) {
+                // the client asked for this exact version, retrying against a newer one would defeat If-Match
+                throw new PreconditionFailedException("Product " + id + " was modified concurrently.");
+            }
             log.warn("Optimistic locking failure decreasing stock for product {}. Retrying...", id);
             throw e; // Re-throw to trigger @Retryable
         }
@@ -205,28 +301,102 @@ public class ProductService {
     @Caching(evict = {
             @CacheEvict(cacheNames = "productById", key = "#id"),
             @CacheEvict(cacheNames = "productPages", allEntries = true),
-            @CacheEvict(cacheNames = "lowStockProducts", allEntries = true)
+            @CacheEvict(cacheNames = "lowStockProducts", allEntries = true),
+            @CacheEvict(cacheNames = "productSearch", allEntries = true)
     })
     public void deleteProduct(UUID id) {
         if (!productRepository.existsById(id)) {
             throw new ProductNotFoundException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        stockEngine.ifPresent(engine -> afterCommit(() -> engine.remove(id)));
     }
 
 
 
 
 
+    // the engine logs every change it sees, so it must only see changes Postgres has accepted
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Without If-Match the new stock simply replaces the engine's after the commit. With it, the engine
+     * write is the check: a change the engine accepted since checkExpected fails it with a 412 (rolling
+     * back the row) instead of being overwritten, and a rollback after it succeeded puts the old stock back.
+     */
+    private void putStock(StockEngine engine, Product product, ProductRevision expected, int previousThreshold) {
+        UUID id = product.getId();
+        int stock = product.getStockQuantity();
+        int threshold = product.getLowStockThreshold();
+        int updated = expected != null
+                ? engine.compareAndPut(id, expected.stockQuantity(), stock, threshold)
+                : StockTable.MISSING;
+        if (updated == StockTable.STOCK_CHANGED) {
+            throw new PreconditionFailedException("Stock of product " + id + " changed since the ETag in If-Match.");
+        }
+        if (updated == StockTable.MISSING) {
+            afterCommit(() -> engine.put(id, stock, threshold));
+            return;
+        }
+        afterRollback(() -> {
+            if (engine.compareAndPut(id, stock, expected.stockQuantity(), previousThreshold) == StockTable.STOCK_CHANGED) {
+                log.warn("Stock of product {} changed before a rolled back update could restore it", id);
+            }
+        });
+    }
+
+    private void checkExpected(Product product, ProductRevision expected) {
+        if (expected == null) {
+            return;
+        }
+        int stock = stockEngine.map(engine -> engine.stock(product.getId()))
+                .filter(engineStock -> engineStock >= 0)
+                .orElse(product.getStockQuantity());
+        if (!expected.matches(product.getVersion(), stock)) {
+            throw new PreconditionFailedException("Product " + product.getId() + " is at version " +
+                    product.getVersion() + " with stock " + stock + ", but " + expected.version() +
+                    " with stock " + expected.stockQuantity() + " was expected.");
+        }
+    }
+
     private ProductResponse mapToProductResponse(Product product) {
         ProductResponse response = new ProductResponse();
         response.setId(product.getId());
         response.setName(product.getName());
         response.setDescription(product.getDescription());
         response.setStockQuantity(product.getStockQuantity());
+        stockEngine.map(engine -> engine.stock(product.getId()))
+                .filter(stock -> stock >= 0)
+                .ifPresent(response::setStockQuantity);
         response.setLowStockThreshold(product.getLowStockThreshold());
         response.setCreatedAt(product.getCreatedAt());
         response.setUpdatedAt(product.getUpdatedAt());
+        response.setVersion(product.getVersion());
         return response;
     }
 
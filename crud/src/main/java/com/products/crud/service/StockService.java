@@ -0,0 +1,24 @@
+package com.products.crud.service;
+
+import com.products.crud.DTOs.ProductResponse;
+import com.products.crud.DTOs.ProductRevision;
+
+import java.util.UUID;
+
+/**
+ * Stock changes, served by {@link ProductService} from Postgres or, when the stock engine is
+ * enabled, by {@link EngineStockService} from memory.
+ */
+public interface StockService {
+
+    ProductResponse increaseStock(UUID id, Integer quantity, ProductRevision expected);
+
+    ProductResponse decreaseStock(UUID id, Integer quantity, ProductRevision expected);
+
+    /**
+     * @return the product with its live stock quantity; cached responses can lag behind the engine
+     */
+    default ProductResponse withCurrentStock(ProductResponse product) {
+        return product;
+    }
+}
@@ -0,0 +1,6 @@
+-- Run once per database by its owner or a superuser, before the application first starts:
+--   psql -d <database> -f crud/src/main/resources/db/provision.sql
+-- Creating an extension needs CREATE on the database, which the application role should not have.
+
+-- trigram index behind substring search (idx_products_search_name_trgm in schema.sql)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
@@ -0,0 +1,17 @@
+-- Runs after Hibernate has created/updated the products table (see spring.jpa.defer-datasource-initialization).
+-- Indexes that JPA annotations cannot express live here; everything is idempotent.
+-- pg_trgm must already be installed, see db/provision.sql.
+
+-- superseded by idx_products_search_name on the generated search_name column
+DROP INDEX IF EXISTS idx_products_name_lower_pattern;
+DROP INDEX IF EXISTS idx_products_name_trgm;
+
+-- name substring search: search_name LIKE '%abc%'
+CREATE INDEX IF NOT EXISTS idx_products_search_name_trgm
+    ON products USING gin (search_name gin_trgm_ops);
+
+-- below-threshold filter, in search order for keyset pagination
+DROP INDEX IF EXISTS idx_products_below_threshold;
+CREATE INDEX IF NOT EXISTS idx_products_below_threshold_search
+    ON products (search_name, id)
+    WHERE stock_quantity <= low_stock_threshold;
@@ -0,0 +1,55 @@
+package com.products.crud.DTOs;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchCriteriaTest {
+
+    @Test
+    void namesThatDifferOnlyInCaseAndPaddingShareACacheKey() {
+        assertThat(criteria(" Bolt ").cacheKey())
+                .isEqualTo(criteria("bolt").cacheKey())
+                .isEqualTo(criteria("BOLT").cacheKey());
+        assertThat(criteria("bolts").cacheKey()).isNotEqualTo(criteria("bolt").cacheKey());
+    }
+
+    @Test
+    void matchModeIsIgnoredWithoutAName() {
+        ProductSearchCriteria prefix = criteria("  ");
+        ProductSearchCriteria contains = criteria(null);
+        contains.setMatch(ProductSearchCriteria.MatchMode.CONTAINS);
+
+        assertThat(prefix.normalizedName()).isNull();
+        assertThat(prefix.cacheKey()).isEqualTo(contains.cacheKey());
+    }
+
+    @Test
+    void everyFilterIsPartOfTheKey() {
+        ProductSearchCriteria base = criteria("bolt");
+        ProductSearchCriteria contains = criteria("bolt");
+        contains.setMatch(ProductSearchCriteria.MatchMode.CONTAINS);
+        ProductSearchCriteria minStock = criteria("bolt");
+        minStock.setMinStock(1);
+        ProductSearchCriteria maxStock = criteria("bolt");
+        maxStock.setMaxStock(1);
+        ProductSearchCriteria belowThreshold = criteria("bolt");
+        belowThreshold.setBelowThreshold(true);
+        ProductSearchCriteria cursor = criteria("bolt");
+        cursor.setCursor("abc");
+        ProductSearchCriteria size = criteria("bolt");
+        size.setSize(50);
+
+        // min and max of the same value must not collide
+        assertThat(minStock.cacheKey()).isNotEqualTo(maxStock.cacheKey());
+        for (ProductSearchCriteria other : new ProductSearchCriteria[]{contains, minStock, maxStock, belowThreshold, cursor, size}) {
+            assertThat(other.cacheKey()).isNotEqualTo(base.cacheKey());
+        }
+    }
+
+    private static ProductSearchCriteria criteria(String name) {
+        ProductSearchCriteria criteria = new ProductSearchCriteria();
+        criteria.setName(name);
+        return criteria;
+    }
+}
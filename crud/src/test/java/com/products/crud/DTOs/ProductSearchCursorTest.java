@@ -0,0 +1,35 @@
+package com.products.crud.DTOs;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductSearchCursorTest {
+
+    @Test
+    void roundTripsNamesWithSeparatorsAndNonAsciiCharacters() {
+        ProductSearchCursor cursor = new ProductSearchCursor("bolt: m8 \u00e9crou \uD83D\uDD29", UUID.randomUUID());
+
+        String encoded = cursor.encode();
+
+        assertThat(encoded).doesNotContain("=", "+", "/");
+        assertThat(ProductSearchCursor.decode(encoded)).isEqualTo(cursor);
+    }
+
+    @Test
+    void rejectsCursorsItDidNotIssue() {
+        String noId = Base64.getUrlEncoder().encodeToString("bolt".getBytes(StandardCharsets.UTF_8));
+        String badId = Base64.getUrlEncoder().encodeToString("not-a-uuid:bolt".getBytes(StandardCharsets.UTF_8));
+
+        for (String cursor : new String[]{"not base64!", noId, badId}) {
+            assertThatThrownBy(() -> ProductSearchCursor.decode(cursor))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid search cursor.");
+        }
+    }
+}
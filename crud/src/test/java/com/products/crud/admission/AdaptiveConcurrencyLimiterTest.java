@@ -0,0 +1,76 @@
+package com.products.crud.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void admitsUpToTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.inFlight()).isEqualTo(2);
+
+        limiter.release(FAST);
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileLatencyIsFlatAndShrinksWhenItRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 200);
+
+        saturate(limiter, FAST, 500);
+        int grown = limiter.limit();
+        assertThat(grown).isGreaterThan(20);
+
+        saturate(limiter, SLOW, 50);
+        assertThat(limiter.limit()).isLessThan(grown);
+    }
+
+    @Test
+    void staysWithinItsBounds() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 5, 60);
+
+        saturate(limiter, FAST, 1_000);
+        assertThat(limiter.limit()).isEqualTo(60);
+
+        saturate(limiter, SLOW * 20, 150);
+        assertThat(limiter.limit()).isEqualTo(5);
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 200);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(FAST);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(20);
+    }
+
+    // keeps the limiter full, completing one request at a time with the given latency
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long rttNanos, int completions) {
+        while (limiter.tryAcquire()) {
+        }
+        for (int i = 0; i < completions; i++) {
+            limiter.release(rttNanos);
+            while (limiter.tryAcquire()) {
+            }
+        }
+        for (int held = limiter.inFlight(); held > 0; held--) {
+            limiter.release(rttNanos);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.products.crud.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsTheBurstThenReportsTheWaitForTheNextToken() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 3, 1_000);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("client", 0)).isZero();
+        }
+        long wait = limiter.tryAcquire("client", 0);
+
+        assertThat(wait).isBetween(SECOND / 10 - 1, SECOND / 10 + 1);
+        assertThat(limiter.tryAcquire("client", wait - SECOND / 100)).isPositive();
+        assertThat(limiter.tryAcquire("client", wait)).isZero();
+    }
+
+    @Test
+    void refillsUpToTheBurstOnly() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 2, 1_000);
+        limiter.tryAcquire("client", 0);
+        limiter.tryAcquire("client", 0);
+
+        long later = 10 * SECOND;
+        assertThat(limiter.tryAcquire("client", later)).isZero();
+        assertThat(limiter.tryAcquire("client", later)).isZero();
+        assertThat(limiter.tryAcquire("client", later)).isPositive();
+    }
+
+    @Test
+    void keepsASeparateBucketPerKey() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 1_000);
+
+        assertThat(limiter.tryAcquire("a", 0)).isZero();
+        assertThat(limiter.tryAcquire("a", 0)).isPositive();
+        assertThat(limiter.tryAcquire("b", 0)).isZero();
+    }
+
+    @Test
+    void forgetsLeastRecentlyUsedKeysOnceFull() {
+        // one bucket per segment
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 64);
+        assertThat(limiter.tryAcquire("exhausted", 0)).isZero();
+        assertThat(limiter.tryAcquire("exhausted", 0)).isPositive();
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("client-" + i, 0);
+        }
+
+        // evicted, so it starts over with a full bucket
+        assertThat(limiter.tryAcquire("exhausted", 0)).isZero();
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        assertThat(AdmissionControlInterceptor.toRetryAfterSeconds(1)).isEqualTo(1);
+        assertThat(AdmissionControlInterceptor.toRetryAfterSeconds(SECOND)).isEqualTo(1);
+        assertThat(AdmissionControlInterceptor.toRetryAfterSeconds(SECOND + 1)).isEqualTo(2);
+    }
+}
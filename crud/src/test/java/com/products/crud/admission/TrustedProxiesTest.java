@@ -0,0 +1,84 @@
+package com.products.crud.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TrustedProxiesTest {
+
+    @Test
+    void matchesAddressesInsideTheCidrRange() {
+        TrustedProxies proxies = new TrustedProxies(List.of("10.1.2.0/23"));
+
+        assertThat(proxies.contains("10.1.2.0")).isTrue();
+        assertThat(proxies.contains("10.1.3.255")).isTrue();
+        assertThat(proxies.contains("10.1.1.255")).isFalse();
+        assertThat(proxies.contains("10.1.4.0")).isFalse();
+    }
+
+    @Test
+    void handlesTheWholeAndTheSingleAddressPrefixes() {
+        TrustedProxies everything = new TrustedProxies(List.of("0.0.0.0/0"));
+        TrustedProxies single = new TrustedProxies(List.of("192.168.0.7", "172.16.0.1/32"));
+
+        assertThat(everything.contains("255.255.255.255")).isTrue();
+        assertThat(everything.contains("::1")).isFalse();
+        assertThat(single.contains("192.168.0.7")).isTrue();
+        assertThat(single.contains("192.168.0.6")).isFalse();
+        assertThat(single.contains("172.16.0.1")).isTrue();
+    }
+
+    @Test
+    void matchesIpv6RangesInEverySpelling() {
+        TrustedProxies proxies = new TrustedProxies(List.of("fd00:ab::/32", "::1", "10.0.0.0/8"));
+
+        assertThat(proxies.contains("fd00:ab:0:0:0:0:0:1")).isTrue();
+        assertThat(proxies.contains("FD00:00AB::ffff")).isTrue();
+        assertThat(proxies.contains("fd00:ac::1")).isFalse();
+        assertThat(proxies.contains("0:0:0:0:0:0:0:1")).isTrue();
+        assertThat(proxies.contains("::2")).isFalse();
+        // an IPv4-mapped address is the IPv4 address
+        assertThat(proxies.contains("::ffff:10.9.8.7")).isTrue();
+        assertThat(proxies.contains("::ffff:11.9.8.7")).isFalse();
+    }
+
+    @Test
+    void rejectsAnythingThatIsNotALiteral() {
+        TrustedProxies proxies = new TrustedProxies(List.of("0.0.0.0/0", "::/0"));
+
+        // each of these would reach the system resolver through InetAddress.getByName
+        assertThat(proxies.contains("999.1.1.1")).isFalse();
+        assertThat(proxies.contains("256.0.0.1")).isFalse();
+        assertThat(proxies.contains("g::1")).isFalse();
+        assertThat(proxies.contains("localhost")).isFalse();
+        assertThat(proxies.contains("proxy.example.com")).isFalse();
+        assertThat(proxies.contains("fe80::1%eth0")).isFalse();
+        assertThat(proxies.contains("[::1]")).isFalse();
+        assertThat(proxies.contains("1.2.3")).isFalse();
+        assertThat(proxies.contains("1.2.3.4.5")).isFalse();
+        assertThat(proxies.contains("1..2.3")).isFalse();
+        assertThat(proxies.contains("0001.2.3.4")).isFalse();
+        assertThat(proxies.contains("1::2::3")).isFalse();
+        assertThat(proxies.contains("1:2:3:4:5:6:7:8:9")).isFalse();
+        assertThat(proxies.contains("1:2:3:4:5:6:7::8")).isFalse();
+        assertThat(proxies.contains("12345::1")).isFalse();
+        assertThat(proxies.contains("1.2.3.4::1")).isFalse();
+        assertThat(proxies.contains("::\uff11")).isFalse();
+        assertThat(proxies.contains("")).isFalse();
+        assertThat(proxies.contains(null)).isFalse();
+    }
+
+    @Test
+    void refusesInvalidConfiguration() {
+        assertThatThrownBy(() -> new TrustedProxies(List.of("proxy.internal")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TrustedProxies(List.of("10.0.0.0/33")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TrustedProxies(List.of("::/129")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(new TrustedProxies(List.of(" ", "")).contains("127.0.0.1")).isFalse();
+    }
+}
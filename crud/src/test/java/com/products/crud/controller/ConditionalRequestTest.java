@@ -0,0 +1,123 @@
+package com.products.crud.controller;
+
+import com.products.crud.exception.GlobalExceptionHandler;
+import com.products.crud.models.Product;
+import com.products.crud.repository.ProductRepository;
+import com.products.crud.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// ProductService behind a real @Retryable proxy, so a retried conflict would show up as extra flushes
+@SpringJUnitConfig(ConditionalRequestTest.Config.class)
+class ConditionalRequestTest {
+
+    @Configuration
+    @EnableRetry(proxyTargetClass = true)
+    static class Config {
+
+        @Bean
+        ProductRepository productRepository() {
+            return mock(ProductRepository.class);
+        }
+
+        @Bean
+        ProductService productService(ProductRepository productRepository) {
+            return new ProductService(productRepository, Optional.empty());
+        }
+    }
+
+    private final UUID id = UUID.randomUUID();
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        reset(productRepository);
+        Product product = new Product();
+        product.setId(id);
+        product.setName("widget");
+        product.setStockQuantity(10);
+        product.setLowStockThreshold(2);
+        product.setVersion(1);
+        when(productRepository.findById(id)).thenReturn(Optional.of(product));
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductController(productService, productService))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void ifMatchConflictAtFlushTimeIsA412WithoutRetries() throws Exception {
+        // another writer bumped the version after our read, so the flush fails
+        when(productRepository.saveAndFlush(any())).thenThrow(new ObjectOptimisticLockingFailureException(Product.class, id));
+
+        mockMvc.perform(patch("/api/products/{id}/decrease-stock", id)
+                        .header(HttpHeaders.IF_MATCH, "\"1-10\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\": 1}"))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(productRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    void conflictWithoutIfMatchIsRetried() {
+        when(productRepository.saveAndFlush(any())).thenThrow(new ObjectOptimisticLockingFailureException(Product.class, id));
+
+        assertThatThrownBy(() -> productService.decreaseStock(id, 1, null))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        verify(productRepository, times(5)).saveAndFlush(any());
+    }
+
+    @Test
+    void staleIfMatchIsRejectedBeforeAnyWrite() throws Exception {
+        mockMvc.perform(patch("/api/products/{id}/decrease-stock", id)
+                        .header(HttpHeaders.IF_MATCH, "\"1-11\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\": 1}"))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(productRepository, times(0)).saveAndFlush(any());
+    }
+
+    @Test
+    void matchingIfNoneMatchIsA304() throws Exception {
+        mockMvc.perform(get("/api/products/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"1-10\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-10\""));
+
+        mockMvc.perform(get("/api/products/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"1-9\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-10\""));
+    }
+}
@@ -0,0 +1,75 @@
+package com.products.crud.controller;
+
+import com.products.crud.DTOs.ProductResponse;
+import com.products.crud.DTOs.ProductRevision;
+import com.products.crud.exception.PreconditionFailedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ETagsTest {
+
+    @Test
+    void absentOrWildcardIfMatchExpectsNothing() {
+        assertThat(ETags.expectedRevision(null)).isNull();
+        assertThat(ETags.expectedRevision(" ")).isNull();
+        assertThat(ETags.expectedRevision("*")).isNull();
+        assertThat(ETags.expectedRevision(" * ")).isNull();
+    }
+
+    @Test
+    void parsesTheTagsThisApiIssues() {
+        ProductResponse product = product(3, 17);
+
+        assertThat(ETags.forProduct(product)).isEqualTo("\"3-17\"");
+        assertThat(ETags.expectedRevision(ETags.forProduct(product))).isEqualTo(new ProductRevision(3, 17));
+        assertThat(ETags.expectedRevision(" \"0-0\" ")).isEqualTo(new ProductRevision(0, 0));
+    }
+
+    @Test
+    void rejectsWeakMalformedAndNegativeTags() {
+        List<String> rejected = List.of(
+                "W/\"3-17\"",       // If-Match uses strong comparison
+                "\"3-17\", \"4-17\"",
+                "3-17",
+                "\"3\"",            // the version-only tags issued before stock was part of the ETag
+                "\"\"",
+                "\"",
+                "\"3-\"",
+                "\"-17\"",
+                "\"a-17\"",
+                "\"3-17-1\"",
+                "\"3--17\"",
+                "\"-3-17\"",
+                "\"99999999999-1\"");
+        for (String ifMatch : rejected) {
+            assertThatThrownBy(() -> ETags.expectedRevision(ifMatch))
+                    .as(ifMatch)
+                    .isInstanceOf(PreconditionFailedException.class);
+        }
+    }
+
+    @Test
+    void listTagsAreWeakAndFollowStockChanges() {
+        ProductResponse product = product(3, 17);
+        String before = ETags.forProducts(List.of(product), "low-stock");
+
+        product.setStockQuantity(16);
+        String after = ETags.forProducts(List.of(product), "low-stock");
+
+        assertThat(before).startsWith("W/\"").isNotEqualTo(after);
+        assertThat(ETags.forProducts(List.of(product), "page-0")).isNotEqualTo(after);
+    }
+
+    private static ProductResponse product(int version, int stock) {
+        ProductResponse product = new ProductResponse();
+        product.setId(UUID.randomUUID());
+        product.setVersion(version);
+        product.setStockQuantity(stock);
+        return product;
+    }
+}
@@ -0,0 +1,100 @@
+package com.products.crud.engine;
+
+import com.products.crud.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockEngineTest {
+
+    private static final int SEGMENT_BYTES = 64 * WriteAheadLog.RECORD_BYTES;
+
+    @TempDir
+    Path walDirectory;
+
+    private final UUID kept = UUID.randomUUID();
+    private final UUID updated = UUID.randomUUID();
+    private final UUID removed = UUID.randomUUID();
+    private final UUID added = UUID.randomUUID();
+
+    private ProductRepository productRepository;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        // Postgres as of the last write-behind flush
+        when(productRepository.streamStockRows()).thenAnswer(invocation -> Stream.of(
+                new StockRow(kept, 10, 1),
+                new StockRow(updated, 20, 2),
+                new StockRow(removed, 30, null)));
+    }
+
+    @Test
+    void recoverReplaysTheLogOverTheDatabaseRows() {
+        try (WriteAheadLog wal = new WriteAheadLog(walDirectory, SEGMENT_BYTES, TimeUnit.MICROSECONDS.toNanos(100))) {
+            wal.start();
+            wal.appendUpdate(updated, 15, 2);
+            wal.appendRemove(removed);
+            wal.appendUpdate(added, 5, 1);
+        }
+
+        StockEngine engine = newEngine();
+        engine.recover();
+        try {
+            assertThat(engine.stock(kept)).isEqualTo(10);
+            assertThat(engine.stock(updated)).isEqualTo(15);
+            assertThat(engine.stock(removed)).isEqualTo(StockTable.MISSING);
+            assertThat(engine.stock(added)).isEqualTo(5);
+            // replayed changes may not have reached Postgres, so the next flush must write them
+            assertThat(engine.drainDirty()).containsExactlyInAnyOrder(updated, removed, added);
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void changesAfterRecoveryAreLoggedAndSurviveARestart() {
+        StockEngine engine = newEngine();
+        engine.recover();
+        try {
+            assertThat(engine.drainDirty()).isEmpty();
+            assertThat(engine.decrease(kept, 4, StockTable.ANY_STOCK)).isEqualTo(6);
+            assertThat(engine.decrease(kept, 7, StockTable.ANY_STOCK)).isEqualTo(StockTable.INSUFFICIENT);
+            engine.remove(updated);
+            assertThat(engine.drainDirty()).containsExactlyInAnyOrder(kept, updated);
+        } finally {
+            engine.shutdown();
+        }
+
+        StockEngine restarted = newEngine();
+        restarted.recover();
+        try {
+            assertThat(restarted.stock(kept)).isEqualTo(6);
+            assertThat(restarted.stock(updated)).isEqualTo(StockTable.MISSING);
+            assertThat(restarted.stock(removed)).isEqualTo(30);
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    private StockEngine newEngine() {
+        StockEngineProperties properties = new StockEngineProperties(true, walDirectory.toString(), SEGMENT_BYTES,
+                4, 16, 100, true, 1000, 500);
+        return new StockEngine(properties, productRepository, transactionManager);
+    }
+}
@@ -0,0 +1,132 @@
+package com.products.crud.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Decrement throughput of the stock engine, with and without the write-ahead log.
+ *
+ * Run with:
+ * ./mvnw test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) com.products.crud.engine.StockTableBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class StockTableBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+
+        @Param({"10000", "1000000"})
+        public int products;
+
+        // NONE: table only, ASYNC: logged but not awaited, SYNC: waits for the group commit
+        @Param({"NONE", "ASYNC", "SYNC"})
+        public String durability;
+
+        UUID[] ids;
+        StockTable table;
+        WriteAheadLog wal;
+        Path walDirectory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            StockTable.ChangeListener listener = new StockTable.ChangeListener() {
+                @Override
+                public void onUpdate(UUID id, int stock, int threshold) {
+                    if (wal != null) {
+                        wal.appendUpdate(id, stock, threshold);
+                    }
+                }
+
+                @Override
+                public void onRemove(UUID id) {
+                    if (wal != null) {
+                        wal.appendRemove(id);
+                    }
+                }
+            };
+            table = new StockTable(64, products, listener);
+            ids = new UUID[products];
+            for (int i = 0; i < products; i++) {
+                ids[i] = UUID.randomUUID();
+                table.put(ids[i], Integer.MAX_VALUE, 10);
+            }
+            if (!"NONE".equals(durability)) {
+                walDirectory = Files.createTempDirectory("stock-wal-bench");
+                wal = new WriteAheadLog(walDirectory, 64 * 1024 * 1024, TimeUnit.MICROSECONDS.toNanos(200));
+                wal.start();
+            }
+        }
+
+        // keep disk usage bounded, nothing reads the old segments back
+        @TearDown(Level.Iteration)
+        public void dropOldSegments() {
+            if (wal != null) {
+                wal.deleteSegmentsBefore(wal.currentSegment());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            if (wal != null) {
+                wal.close();
+                try (Stream<Path> files = Files.walk(walDirectory)) {
+                    files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int decrease(Catalog catalog) {
+        UUID id = catalog.ids[ThreadLocalRandom.current().nextInt(catalog.ids.length)];
+        int remaining = catalog.table.decrease(id, 1);
+        if ("SYNC".equals(catalog.durability)) {
+            catalog.wal.awaitDurable(catalog.wal.position());
+        }
+        return remaining;
+    }
+
+    @Benchmark
+    public int read(Catalog catalog) {
+        UUID id = catalog.ids[ThreadLocalRandom.current().nextInt(catalog.ids.length)];
+        return catalog.table.stock(id);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StockTableBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,139 @@
+package com.products.crud.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockTableTest {
+
+    private static final StockTable.ChangeListener NO_LISTENER = new StockTable.ChangeListener() {
+        @Override
+        public void onUpdate(UUID id, int stock, int threshold) {
+        }
+
+        @Override
+        public void onRemove(UUID id) {
+        }
+    };
+
+    // one stripe of 16 slots, so the home slot of an id is simply hash & 15
+    private static final int SLOTS = 16;
+
+    @Test
+    void removeShiftsBackEntriesThatWrappedAroundTheEnd() {
+        StockTable table = new StockTable(1, SLOTS / 2, NO_LISTENER);
+        UUID first = idWithHome(15, 1);
+        UUID wrapped = idWithHome(15, 2);      // probes past slot 15 into slot 0
+        UUID displaced = idWithHome(0, 3);     // its home slot 0 is taken, lands in slot 1
+        table.put(first, 10, 1);
+        table.put(wrapped, 20, 2);
+        table.put(displaced, 30, 3);
+
+        assertThat(table.remove(first)).isTrue();
+
+        assertThat(table.stock(first)).isEqualTo(StockTable.MISSING);
+        assertThat(table.stock(wrapped)).isEqualTo(20);
+        assertThat(table.stock(displaced)).isEqualTo(30);
+        assertThat(table.size()).isEqualTo(2);
+
+        assertThat(table.remove(wrapped)).isTrue();
+        assertThat(table.stock(displaced)).isEqualTo(30);
+        assertThat(table.decrease(displaced, 5)).isEqualTo(25);
+        assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removeLeavesEntriesHomedAfterTheHoleInPlace() {
+        StockTable table = new StockTable(1, SLOTS / 2, NO_LISTENER);
+        UUID atFourteen = idWithHome(14, 1);
+        UUID atFifteen = idWithHome(15, 2);
+        UUID wrapped = idWithHome(15, 3);
+        table.put(atFourteen, 1, 0);
+        table.put(atFifteen, 2, 0);
+        table.put(wrapped, 3, 0);
+
+        assertThat(table.remove(atFourteen)).isTrue();
+
+        assertThat(table.stock(atFifteen)).isEqualTo(2);
+        assertThat(table.stock(wrapped)).isEqualTo(3);
+    }
+
+    @Test
+    void growKeepsEveryEntryReachable() {
+        StockTable table = new StockTable(4, 8, NO_LISTENER);
+        Map<UUID, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            table.put(id, i, i % 7);
+            expected.put(id, i);
+        }
+
+        assertThat(table.size()).isEqualTo(expected.size());
+        expected.forEach((id, stock) -> assertThat(table.stock(id)).isEqualTo(stock));
+
+        List<UUID> ids = new ArrayList<>(expected.keySet());
+        for (int i = 0; i < ids.size(); i += 2) {
+            assertThat(table.remove(ids.get(i))).isTrue();
+            expected.remove(ids.get(i));
+        }
+        assertThat(table.size()).isEqualTo(expected.size());
+        expected.forEach((id, stock) -> assertThat(table.stock(id)).isEqualTo(stock));
+    }
+
+    @Test
+    void decreaseNeverGoesBelowZero() {
+        StockTable table = new StockTable(1, SLOTS / 2, NO_LISTENER);
+        UUID id = UUID.randomUUID();
+        table.put(id, 3, 0);
+
+        assertThat(table.decrease(id, 4)).isEqualTo(StockTable.INSUFFICIENT);
+        assertThat(table.decrease(id, 3)).isZero();
+        assertThat(table.decrease(UUID.randomUUID(), 1)).isEqualTo(StockTable.MISSING);
+    }
+
+    @Test
+    void conditionalChangesOnlyApplyToTheExpectedStock() {
+        StockTable table = new StockTable(1, SLOTS / 2, NO_LISTENER);
+        UUID id = UUID.randomUUID();
+        table.put(id, 10, 0);
+
+        assertThat(table.decrease(id, 2, 10)).isEqualTo(8);
+        // a second client holding the same ETag loses
+        assertThat(table.decrease(id, 2, 10)).isEqualTo(StockTable.STOCK_CHANGED);
+        assertThat(table.increase(id, 5, 9)).isEqualTo(StockTable.STOCK_CHANGED);
+        assertThat(table.increase(id, 5, 8)).isEqualTo(13);
+        assertThat(table.stock(id)).isEqualTo(13);
+    }
+
+    @Test
+    void compareAndPutOnlyReplacesTheExpectedStock() {
+        StockTable table = new StockTable(1, SLOTS / 2, NO_LISTENER);
+        UUID id = UUID.randomUUID();
+        table.put(id, 10, 2);
+        table.decrease(id, 3);
+
+        assertThat(table.compareAndPut(id, 10, 25, 4)).isEqualTo(StockTable.STOCK_CHANGED);
+        assertThat(table.stock(id)).isEqualTo(7);
+        assertThat(table.compareAndPut(id, 7, 25, 4)).isEqualTo(25);
+        assertThat(table.stock(id)).isEqualTo(25);
+        assertThat(table.compareAndPut(UUID.randomUUID(), 0, 1, 0)).isEqualTo(StockTable.MISSING);
+    }
+
+    private static UUID idWithHome(int slot, long seed) {
+        Random random = new Random(seed * 31 + slot);
+        while (true) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            if ((StockTable.hash(id.getMostSignificantBits(), id.getLeastSignificantBits()) & (SLOTS - 1)) == slot) {
+                return id;
+            }
+        }
+    }
+}
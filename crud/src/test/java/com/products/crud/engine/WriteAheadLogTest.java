@@ -0,0 +1,126 @@
+package com.products.crud.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteAheadLogTest {
+
+    // a header plus three records per segment
+    private static final int SEGMENT_BYTES = 4 * WriteAheadLog.RECORD_BYTES;
+    private static final long GROUP_COMMIT_NANOS = 100_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rollsIntoNewSegmentsAndReplaysInOrder() throws IOException {
+        UUID id = UUID.randomUUID();
+        try (WriteAheadLog wal = open()) {
+            for (int stock = 0; stock < 10; stock++) {
+                wal.appendUpdate(id, stock, 2);
+            }
+            wal.appendRemove(id);
+            wal.awaitDurable(wal.position());
+            assertThat(wal.currentSegment()).isEqualTo(3);
+        }
+
+        List<WriteAheadLog.Entry> entries = replay();
+
+        assertThat(entries).hasSize(11);
+        for (int stock = 0; stock < 10; stock++) {
+            assertThat(entries.get(stock)).isEqualTo(new WriteAheadLog.Entry(id, false, stock, 2));
+        }
+        assertThat(entries.get(10).removed()).isTrue();
+        assertThat(segmentFiles()).hasSize(4);
+    }
+
+    @Test
+    void replayStopsAtATornRecordButKeepsLaterRuns() throws IOException {
+        UUID first = UUID.randomUUID();
+        try (WriteAheadLog wal = open()) {
+            for (int stock = 0; stock < 5; stock++) {
+                wal.appendUpdate(first, stock, 0);
+            }
+        }
+        // flip a byte of the second record in the first segment, so its checksum no longer matches
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), 2L * WriteAheadLog.RECORD_BYTES + 5);
+        }
+
+        UUID second = UUID.randomUUID();
+        try (WriteAheadLog wal = open()) {
+            wal.appendUpdate(second, 42, 1);
+        }
+
+        assertThat(replay()).containsExactly(
+                new WriteAheadLog.Entry(first, false, 0, 0),
+                new WriteAheadLog.Entry(second, false, 42, 1));
+    }
+
+    @Test
+    void replayStopsAtAnIncompleteRecord() throws IOException {
+        UUID id = UUID.randomUUID();
+        try (WriteAheadLog wal = open()) {
+            wal.appendUpdate(id, 1, 0);
+            wal.appendUpdate(id, 2, 0);
+            wal.appendUpdate(id, 3, 0);
+        }
+        // zero the type byte of the second record, as if the process died while writing it
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0}), 2L * WriteAheadLog.RECORD_BYTES);
+        }
+
+        assertThat(replay()).containsExactly(new WriteAheadLog.Entry(id, false, 1, 0));
+    }
+
+    @Test
+    void deleteSegmentsBeforeKeepsTheGivenSegmentAndNewer() throws IOException {
+        UUID id = UUID.randomUUID();
+        try (WriteAheadLog wal = open()) {
+            for (int stock = 0; stock < 7; stock++) {
+                wal.appendUpdate(id, stock, 0);
+            }
+            wal.awaitDurable(wal.position());
+            long current = wal.currentSegment();
+
+            wal.deleteSegmentsBefore(current);
+
+            assertThat(segmentFiles()).hasSize(1);
+            assertThat(segmentFiles().get(0).getFileName().toString())
+                    .isEqualTo(String.format("wal-%016d.log", current));
+        }
+
+        assertThat(replay()).containsExactly(new WriteAheadLog.Entry(id, false, 6, 0));
+    }
+
+    private WriteAheadLog open() {
+        WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_BYTES, GROUP_COMMIT_NANOS);
+        wal.start();
+        return wal;
+    }
+
+    private List<WriteAheadLog.Entry> replay() {
+        List<WriteAheadLog.Entry> entries = new ArrayList<>();
+        new WriteAheadLog(directory, SEGMENT_BYTES, GROUP_COMMIT_NANOS).replay(entries::add);
+        return entries;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.products.crud.loadtest;
+
+import com.products.crud.TestcontainersConfiguration;
+import com.products.crud.loadtest.LoadTestDriver.SeededProduct;
+import com.products.crud.loadtest.TrafficMix.Operation;
+import com.products.crud.models.Product;
+import com.products.crud.repository.ProductRepository;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Measurement;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs a configurable traffic mix against the full application backed by Postgres and Redis
+ * containers, and writes a JSON report to target/load-test. Excluded from the normal build;
+ * run it with {@code ./mvnw -Pload-test test}. See {@link LoadTestSettings} for the knobs.
+ */
+@Tag("load")
+@Slf4j
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        // every worker connects from localhost; trusting it makes the server key each worker by its
+        // X-Client-Id, so runs with admission control on get one client bucket per worker
+        "inventory.admission.trusted-proxies=127.0.0.1,::1",
+        "logging.level.com.products.crud=WARN",
+        "logging.level.com.products.crud.loadtest=INFO"
+})
+class InventoryLoadTest {
+
+    private static final int HOT_STOCK = 1_000_000;
+    private static final double LOW_STOCK_SHARE = 0.05;
+
+    // the per-product limit would shed most Zipf-hot decreases, so admission control is opt-in for load runs
+    @DynamicPropertySource
+    static void admissionProperties(DynamicPropertyRegistry registry) {
+        registry.add("inventory.admission.enabled",
+                () -> System.getProperty(LoadTestSettings.ADMISSION_PREFIX + "enabled", "false"));
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(LoadTestSettings.ADMISSION_PREFIX)
+                    && !name.equals(LoadTestSettings.ADMISSION_PREFIX + "enabled")) {
+                registry.add("inventory.admission." + name.substring(LoadTestSettings.ADMISSION_PREFIX.length()),
+                        () -> System.getProperty(name));
+            }
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void runTrafficMix() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        List<SeededProduct> products = seedCatalog(settings.products());
+        LoadTestDriver driver = new LoadTestDriver(URI.create("http://localhost:" + port), products, settings);
+
+        if (!settings.warmup().isZero()) {
+            driver.run(settings.warmup());
+        }
+
+        Map<String, Double> retriesBefore = countersByTag("inventory.retry.failed_attempts", "method");
+        Map<String, Double> cacheBefore = cacheCounters();
+        Map<String, Double> rejectedBefore = countersByTag("inventory.admission.rejected", "reason");
+
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        Map<Operation, OperationStats> stats = driver.run(settings.duration());
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Map<String, LoadTestReport.OperationReport> operations = new LinkedHashMap<>();
+        long totalRequests = 0;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            LoadTestReport.OperationReport operation = entry.getValue().toReport(elapsedSeconds);
+            operations.put(entry.getKey().key, operation);
+            totalRequests += operation.requests();
+        }
+
+        LoadTestReport report = new LoadTestReport(
+                settings.name(),
+                startedAt.toString(),
+                new LoadTestReport.Settings(
+                        settings.mixSpec(),
+                        "closed",
+                        settings.threads(),
+                        settings.products(),
+                        settings.zipfExponent(),
+                        settings.bulkSize(),
+                        settings.admissionEnabled(),
+                        settings.warmup().toMillis() / 1000.0,
+                        settings.duration().toMillis() / 1000.0),
+                elapsedSeconds,
+                totalRequests,
+                totalRequests / elapsedSeconds,
+                operations,
+                difference(countersByTag("inventory.retry.failed_attempts", "method"), retriesBefore),
+                cacheReports(difference(cacheCounters(), cacheBefore)),
+                difference(countersByTag("inventory.admission.rejected", "reason"), rejectedBefore));
+
+        Path file = report.write(settings.reportDirectory());
+        log.info("Load test report written to {}", file.toAbsolutePath());
+
+        assertThat(report.totalRequests()).isPositive();
+    }
+
+    // the hottest ranks get deep stock; the coldest few are seeded at their threshold so low-stock polling has work to do
+    private List<SeededProduct> seedCatalog(int count) {
+        int lowStockFrom = (int) Math.ceil(count * (1 - LOW_STOCK_SHARE));
+        List<Product> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setName(String.format("load-product-%06d", i));
+            product.setDescription("load test product");
+            product.setLowStockThreshold(i >= lowStockFrom ? 50 : 10);
+            product.setStockQuantity(i >= lowStockFrom ? 50 : HOT_STOCK);
+            entities.add(product);
+        }
+
+        List<SeededProduct> seeded = new ArrayList<>(count);
+        for (Product product : productRepository.saveAll(entities)) {
+            seeded.add(new SeededProduct(product.getId(), product.getName(),
+                    product.getStockQuantity(), product.getLowStockThreshold()));
+        }
+        return seeded;
+    }
+
+    private Map<String, Double> countersByTag(String meterName, String tag) {
+        Map<String, Double> totals = new TreeMap<>();
+        for (Meter meter : meterRegistry.find(meterName).meters()) {
+            String key = meter.getId().getTag(tag);
+            totals.merge(key != null ? key : "unknown", total(meter), Double::sum);
+        }
+        return totals;
+    }
+
+    // keyed "<cache>:<hit|miss>"
+    private Map<String, Double> cacheCounters() {
+        Map<String, Double> totals = new TreeMap<>();
+        for (Meter meter : meterRegistry.find("cache.gets").meters()) {
+            String key = meter.getId().getTag("cache") + ":" + meter.getId().getTag("result");
+            totals.merge(key, total(meter), Double::sum);
+        }
+        return totals;
+    }
+
+    private Map<String, LoadTestReport.CacheReport> cacheReports(Map<String, Double> counters) {
+        Map<String, LoadTestReport.CacheReport> reports = new TreeMap<>();
+        counters.keySet().stream()
+                .map(key -> key.substring(0, key.lastIndexOf(':')))
+                .distinct()
+                .forEach(cache -> {
+                    double hits = counters.getOrDefault(cache + ":hit", 0.0);
+                    double misses = counters.getOrDefault(cache + ":miss", 0.0);
+                    double lookups = hits + misses;
+                    reports.put(cache, new LoadTestReport.CacheReport(hits, misses, lookups == 0 ? 0 : hits / lookups));
+                });
+        return reports;
+    }
+
+    private static double total(Meter meter) {
+        double total = 0;
+        for (Measurement measurement : meter.measure()) {
+            total += measurement.getValue();
+        }
+        return total;
+    }
+
+    private static Map<String, Double> difference(Map<String, Double> after, Map<String, Double> before) {
+        Map<String, Double> delta = new TreeMap<>();
+        after.forEach((key, value) -> delta.put(key, value - before.getOrDefault(key, 0.0)));
+        return delta;
+    }
+}
@@ -0,0 +1,140 @@
+package com.products.crud.loadtest;
+
+import com.products.crud.loadtest.TrafficMix.Operation;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop HTTP driver: each worker thread is one client that issues its next request as
+ * soon as the previous one completes. Product picks are Zipf-skewed so a handful of SKUs
+ * take most of the stock traffic, like promotions do in production.
+ */
+final class LoadTestDriver {
+
+    record SeededProduct(UUID id, String name, int stockQuantity, int lowStockThreshold) {
+    }
+
+    private static final int PAGE_SIZE = 20;
+
+    private final URI baseUri;
+    private final List<SeededProduct> products;
+    private final LoadTestSettings settings;
+    private final TrafficMix mix;
+    private final ZipfDistribution productPopularity;
+    private final ZipfDistribution pagePopularity;
+    private final HttpClient httpClient;
+
+    LoadTestDriver(URI baseUri, List<SeededProduct> products, LoadTestSettings settings) {
+        this.baseUri = baseUri;
+        this.products = products;
+        this.settings = settings;
+        this.mix = settings.mix();
+        this.productPopularity = new ZipfDistribution(products.size(), settings.zipfExponent());
+        this.pagePopularity = new ZipfDistribution((products.size() + PAGE_SIZE - 1) / PAGE_SIZE, settings.zipfExponent());
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    Map<Operation, OperationStats> run(Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(settings.threads());
+        try {
+            List<Future<Map<Operation, OperationStats>>> results = new ArrayList<>();
+            for (int i = 0; i < settings.threads(); i++) {
+                String clientId = "load-client-" + i;
+                results.add(workers.submit(() -> runClient(clientId, deadline)));
+            }
+
+            Map<Operation, OperationStats> merged = new EnumMap<>(Operation.class);
+            for (Future<Map<Operation, OperationStats>> result : results) {
+                result.get().forEach((operation, stats) ->
+                        merged.computeIfAbsent(operation, o -> new OperationStats()).merge(stats));
+            }
+            return merged;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load test worker failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private Map<Operation, OperationStats> runClient(String clientId, long deadline) {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            Operation operation = mix.next(random);
+            OperationStats operationStats = stats.computeIfAbsent(operation, o -> new OperationStats());
+            long start = System.nanoTime();
+            try {
+                int status = execute(operation, clientId, random);
+                operationStats.record(System.nanoTime() - start, status);
+            } catch (IOException e) {
+                operationStats.recordFailure(System.nanoTime() - start);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return stats;
+    }
+
+    private int execute(Operation operation, String clientId, ThreadLocalRandom random)
+            throws IOException, InterruptedException {
+        return switch (operation) {
+            case BROWSE -> send(request("/api/products?page=" + pagePopularity.sample(random) + "&size=" + PAGE_SIZE, clientId)
+                    .GET());
+            case DECREASE_STOCK -> send(request("/api/products/" + products.get(productPopularity.sample(random)).id()
+                    + "/decrease-stock", clientId)
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"quantity\":1}")));
+            case LOW_STOCK -> send(request("/api/products/low-stock", clientId).GET());
+            case BULK_UPDATE -> bulkUpdate(clientId, random);
+        };
+    }
+
+    // there is no batch endpoint, so a bulk update is a run of PUTs timed as one operation;
+    // the first non-2xx status is reported for the whole batch
+    private int bulkUpdate(String clientId, ThreadLocalRandom random) throws IOException, InterruptedException {
+        int first = random.nextInt(products.size());
+        int result = 200;
+        for (int i = 0; i < settings.bulkSize(); i++) {
+            SeededProduct product = products.get((first + i) % products.size());
+            String body = String.format(
+                    "{\"name\":\"%s\",\"description\":\"load test product\",\"stockQuantity\":%d,\"lowStockThreshold\":%d}",
+                    product.name(), product.stockQuantity(), product.lowStockThreshold());
+            int status = send(request("/api/products/" + product.id(), clientId)
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(body)));
+            if (result / 100 == 2 && status / 100 != 2) {
+                result = status;
+            }
+        }
+        return result;
+    }
+
+    private HttpRequest.Builder request(String path, String clientId) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("X-Client-Id", clientId);
+    }
+
+    private int send(HttpRequest.Builder builder) throws IOException, InterruptedException {
+        return httpClient.send(builder.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
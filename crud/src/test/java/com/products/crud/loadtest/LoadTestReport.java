@@ -0,0 +1,63 @@
+package com.products.crud.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Machine-readable result of one load test run. The layout is kept stable so reports
+ * from different releases can be diffed or loaded side by side.
+ */
+record LoadTestReport(
+        String name,
+        String startedAt,
+        Settings settings,
+        double elapsedSeconds,
+        long totalRequests,
+        double throughputPerSecond,
+        Map<String, OperationReport> operations,
+        Map<String, Double> serverRetries,
+        Map<String, CacheReport> caches,
+        Map<String, Double> admissionRejected) {
+
+    record Settings(
+            String mix,
+            String model,
+            int threads,
+            int products,
+            double zipfExponent,
+            int bulkSize,
+            boolean admissionEnabled,
+            double warmupSeconds,
+            double durationSeconds) {
+    }
+
+    record OperationReport(
+            long requests,
+            long successes,
+            long failures,
+            double throughputPerSecond,
+            Map<String, Long> statusCounts,
+            Latency latencyMillis,   // 2xx and 3xx responses only
+            Map<String, Latency> latencyMillisByStatus) {
+    }
+
+    record Latency(double p50, double p99, double p999, double max, double mean) {
+    }
+
+    record CacheReport(double hits, double misses, double hitRate) {
+    }
+
+    Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(name + "-" + startedAt.replace(':', '-') + ".json");
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file.toFile(), this);
+        return file;
+    }
+}
@@ -0,0 +1,46 @@
+package com.products.crud.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Load test knobs, read from system properties so runs can be tuned from the command line:
+ * {@code ./mvnw -Pload-test test -Dloadtest.mix=browse=80,decrease=20 -Dloadtest.duration=PT2M}
+ * <p>
+ * Admission control is off unless {@code loadtest.admission.enabled=true}; any other
+ * {@code loadtest.admission.*} property overrides the matching {@code inventory.admission.*} one,
+ * e.g. {@code -Dloadtest.admission.product-requests-per-second=500}.
+ */
+record LoadTestSettings(
+        String name,
+        String mixSpec,
+        Duration warmup,
+        Duration duration,
+        int threads,
+        int products,
+        double zipfExponent,
+        int bulkSize,
+        boolean admissionEnabled,
+        Path reportDirectory) {
+
+    static final String DEFAULT_MIX = "browse=60,decrease=25,lowStock=10,bulkUpdate=5";
+    static final String ADMISSION_PREFIX = "loadtest.admission.";
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                System.getProperty("loadtest.name", "default"),
+                System.getProperty("loadtest.mix", DEFAULT_MIX),
+                Duration.parse(System.getProperty("loadtest.warmup", "PT10S")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT30S")),
+                Integer.getInteger("loadtest.threads", 32),
+                Integer.getInteger("loadtest.products", 1000),
+                Double.parseDouble(System.getProperty("loadtest.zipf-exponent", "1.1")),
+                Integer.getInteger("loadtest.bulk-size", 10),
+                Boolean.getBoolean(ADMISSION_PREFIX + "enabled"),
+                Path.of(System.getProperty("loadtest.report-dir", "target/load-test")));
+    }
+
+    TrafficMix mix() {
+        return TrafficMix.parse(mixSpec);
+    }
+}
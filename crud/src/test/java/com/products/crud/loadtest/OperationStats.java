@@ -0,0 +1,104 @@
+package com.products.crud.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+// per-worker, per-operation samples; merged once the run is over so recording stays lock-free
+final class OperationStats {
+
+    private long[] latenciesNanos = new long[1024];
+    private int[] statuses = new int[1024];
+    private int count;
+    private long failures;
+    private final Map<Integer, Long> statusCounts = new TreeMap<>();
+
+    void record(long latencyNanos, int status) {
+        if (count == latenciesNanos.length) {
+            latenciesNanos = Arrays.copyOf(latenciesNanos, count * 2);
+            statuses = Arrays.copyOf(statuses, count * 2);
+        }
+        latenciesNanos[count] = latencyNanos;
+        statuses[count++] = status;
+        statusCounts.merge(status, 1L, Long::sum);
+    }
+
+    // transport errors and timeouts, no HTTP status available
+    void recordFailure(long latencyNanos) {
+        record(latencyNanos, 0);
+        failures++;
+    }
+
+    void merge(OperationStats other) {
+        if (count + other.count > latenciesNanos.length) {
+            latenciesNanos = Arrays.copyOf(latenciesNanos, count + other.count);
+            statuses = Arrays.copyOf(statuses, count + other.count);
+        }
+        System.arraycopy(other.latenciesNanos, 0, latenciesNanos, count, other.count);
+        System.arraycopy(other.statuses, 0, statuses, count, other.count);
+        count += other.count;
+        failures += other.failures;
+        other.statusCounts.forEach((status, n) -> statusCounts.merge(status, n, Long::sum));
+    }
+
+    // fast 429s and failed connections would flatter the percentiles, so the headline latency covers successes only
+    LoadTestReport.OperationReport toReport(double elapsedSeconds) {
+        long successes = statusCounts.entrySet().stream()
+                .filter(e -> isSuccess(e.getKey()))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        Map<String, Long> statusNames = new TreeMap<>();
+        Map<String, LoadTestReport.Latency> latencyByStatus = new TreeMap<>();
+        statusCounts.forEach((status, n) -> {
+            statusNames.put(statusName(status), n);
+            latencyByStatus.put(statusName(status), latency(sample -> sample == status));
+        });
+        return new LoadTestReport.OperationReport(
+                count,
+                successes,
+                failures,
+                count / elapsedSeconds,
+                statusNames,
+                latency(OperationStats::isSuccess),
+                latencyByStatus);
+    }
+
+    private LoadTestReport.Latency latency(IntPredicate statusFilter) {
+        long[] sorted = new long[count];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (statusFilter.test(statuses[i])) {
+                sorted[n++] = latenciesNanos[i];
+            }
+        }
+        sorted = Arrays.copyOf(sorted, n);
+        Arrays.sort(sorted);
+        return new LoadTestReport.Latency(
+                toMillis(percentile(sorted, 0.50)),
+                toMillis(percentile(sorted, 0.99)),
+                toMillis(percentile(sorted, 0.999)),
+                toMillis(n == 0 ? 0 : sorted[n - 1]),
+                toMillis(n == 0 ? 0 : (long) Arrays.stream(sorted).average().orElse(0)));
+    }
+
+    private static boolean isSuccess(int status) {
+        return status >= 200 && status < 400;
+    }
+
+    private static String statusName(int status) {
+        return status == 0 ? "failed" : String.valueOf(status);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,27 @@
+package com.products.crud.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+// rank 0 is the hottest item; an exponent around 1 gives the usual "few SKUs take most of the traffic" shape
+final class ZipfDistribution {
+
+    private final double[] cdf;
+
+    ZipfDistribution(int items, double exponent) {
+        cdf = new double[items];
+        double sum = 0;
+        for (int i = 0; i < items; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < items; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    int sample(ThreadLocalRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+    }
+}
@@ -0,0 +1,17 @@
+package com.products.crud.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSpecificationsTest {
+
+    @Test
+    void prefixRangeEndsAtTheNextCodePoint() {
+        assertThat(ProductSpecifications.successor("bolt")).isEqualTo("bolu");
+        assertThat(ProductSpecifications.successor("a\uD7FF")).isEqualTo("a\uE000");
+        assertThat(ProductSpecifications.successor("a\uD83D\uDD29")).isEqualTo("a\uD83D\uDD2A");
+        assertThat(ProductSpecifications.successor("a\uDBFF\uDFFF")).isEqualTo("b");
+        assertThat(ProductSpecifications.successor("\uDBFF\uDFFF")).isNull();
+    }
+}
@@ -0,0 +1,158 @@
+package com.products.crud.service;
+
+import com.products.crud.DTOs.ProductRequest;
+import com.products.crud.DTOs.ProductResponse;
+import com.products.crud.DTOs.ProductRevision;
+import com.products.crud.DTOs.ProductSearchCriteria;
+import com.products.crud.engine.StockEngine;
+import com.products.crud.engine.StockEngineProperties;
+import com.products.crud.engine.StockRow;
+import com.products.crud.engine.StockTable;
+import com.products.crud.exception.PreconditionFailedException;
+import com.products.crud.models.Product;
+import com.products.crud.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductServiceTest {
+
+    @TempDir
+    Path walDirectory;
+
+    private final UUID id = UUID.randomUUID();
+
+    private ProductRepository productRepository;
+    private StockEngine engine;
+    private ProductService productService;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(productRepository.streamStockRows()).thenAnswer(invocation -> Stream.of(new StockRow(id, 10, 2)));
+        engine = new StockEngine(new StockEngineProperties(true, walDirectory.toString(), 1 << 16,
+                4, 16, 100, true, 1000, 500), productRepository, transactionManager);
+        engine.recover();
+
+        product = new Product();
+        product.setId(id);
+        product.setName("widget");
+        product.setStockQuantity(10);
+        product.setLowStockThreshold(2);
+        product.setVersion(1);
+        when(productRepository.findById(id)).thenReturn(Optional.of(product));
+        productService = new ProductService(productRepository, Optional.of(engine));
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void putWithIfMatchFailsWhenADecreaseLandsBetweenTheCheckAndTheCommit() {
+        // the If-Match check has passed by the time the row is flushed
+        when(productRepository.saveAndFlush(product)).thenAnswer(invocation -> {
+            assertThat(engine.decrease(id, 3, StockTable.ANY_STOCK)).isEqualTo(7);
+            return product;
+        });
+
+        assertThatThrownBy(() -> productService.updateProduct(id, request(25), new ProductRevision(1, 10)))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThat(engine.stock(id)).isEqualTo(7);
+    }
+
+    @Test
+    void putWithIfMatchReplacesTheStockWhenNothingChanged() {
+        when(productRepository.saveAndFlush(product)).thenReturn(product);
+
+        ProductResponse response = productService.updateProduct(id, request(25), new ProductRevision(1, 10));
+
+        assertThat(response.getStockQuantity()).isEqualTo(25);
+        assertThat(engine.stock(id)).isEqualTo(25);
+    }
+
+    @Test
+    void rolledBackPutRestoresTheEngineStock() {
+        when(productRepository.saveAndFlush(product)).thenReturn(product);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            productService.updateProduct(id, request(25), new ProductRevision(1, 10));
+            assertThat(engine.stock(id)).isEqualTo(25);
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(engine.stock(id)).isEqualTo(10);
+    }
+
+    @Test
+    void putWithoutIfMatchReachesTheEngineOnlyAfterTheCommit() {
+        when(productRepository.saveAndFlush(product)).thenReturn(product);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            productService.updateProduct(id, request(25), null);
+            assertThat(engine.stock(id)).isEqualTo(10);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(engine.stock(id)).isEqualTo(25);
+    }
+
+    @Test
+    void searchRejectsAnInvertedStockRange() {
+        ProductSearchCriteria criteria = new ProductSearchCriteria();
+        criteria.setMinStock(10);
+        criteria.setMaxStock(5);
+
+        assertThatThrownBy(() -> productService.searchProducts(criteria))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("minStock");
+    }
+
+    @Test
+    void substringSearchNeedsAWholeTrigram() {
+        ProductSearchCriteria criteria = new ProductSearchCriteria();
+        criteria.setName(" ab ");
+        criteria.setMatch(ProductSearchCriteria.MatchMode.CONTAINS);
+
+        assertThatThrownBy(() -> productService.searchProducts(criteria))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("at least 3 characters");
+    }
+
+    private static ProductRequest request(int stock) {
+        ProductRequest request = new ProductRequest();
+        request.setName("widget");
+        request.setStockQuantity(stock);
+        request.setLowStockThreshold(2);
+        return request;
+    }
+}